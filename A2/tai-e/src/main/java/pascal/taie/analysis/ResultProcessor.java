@@ -35,12 +35,16 @@ import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Pair;
 
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -52,6 +56,9 @@ import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static pascal.taie.util.collection.CollectionUtils.getOne;
 
 /**
@@ -66,11 +73,16 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private static final Logger logger = LogManager.getLogger(ResultProcessor.class);
 
+    private static final String NEWLINE = System.lineSeparator();
+
     private final String action;
 
     private PrintStream out;
 
-    private MultiMap<Pair<String, String>, String> inputs;
+    /**
+     * (method, analysis) -> expected results read from input file.
+     */
+    private Map<Pair<String, String>, ExpectedResult> inputs;
 
     private Set<String> mismatches;
 
@@ -98,6 +110,9 @@ public class ResultProcessor extends ProgramAnalysis {
         if (groups.containsKey(false)) {
             processIntraResults(groups.get(false));
         }
+        if (out != null && out != System.out) {
+            out.close();
+        }
         if (getOptions().getBoolean("log-mismatches")) {
             mismatches.forEach(logger::info);
         }
@@ -108,8 +123,12 @@ public class ResultProcessor extends ProgramAnalysis {
         String output = getOptions().getString("file");
         if (output != null) {
             try {
-                out = new PrintStream(output);
-            } catch (FileNotFoundException e) {
+                // write through a buffered file channel, as the results
+                // are written as one chunk per method
+                out = new PrintStream(new BufferedOutputStream(
+                        Channels.newOutputStream(FileChannel.open(
+                                Path.of(output), CREATE, TRUNCATE_EXISTING, WRITE))));
+            } catch (IOException e) {
                 throw new RuntimeException("Failed to open output file", e);
             }
         } else {
@@ -117,20 +136,23 @@ public class ResultProcessor extends ProgramAnalysis {
         }
     }
 
+    /**
+     * Reads the input file line by line, and indexes the lines of each
+     * method and analysis by their statement prefixes.
+     */
     private void readInputs() {
         String input = getOptions().getString("file");
         Path path = Path.of(input);
-        try {
-            inputs = Maps.newMultiMap();
-            BufferedReader reader = Files.newBufferedReader(path);
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            inputs = Maps.newMap();
             String line;
-            Pair<String, String> currentKey = null;
+            ExpectedResult current = null;
             while ((line = reader.readLine()) != null) {
                 Pair<String, String> key = extractKey(line);
                 if (key != null) {
-                    currentKey = key;
-                } else if (!line.isBlank()) {
-                    inputs.put(currentKey, line);
+                    current = inputs.computeIfAbsent(key, k -> new ExpectedResult());
+                } else if (!line.isBlank() && current != null) {
+                    current.add(line);
                 }
             }
         } catch (IOException e) {
@@ -138,6 +160,55 @@ public class ResultProcessor extends ProgramAnalysis {
         }
     }
 
+    /**
+     * Expected results of an analysis for a method.
+     */
+    private static class ExpectedResult {
+
+        private static final ExpectedResult EMPTY = new ExpectedResult();
+
+        /**
+         * All lines of the result, in the order of the input file.
+         */
+        private final Set<String> lines = new LinkedHashSet<>();
+
+        /**
+         * Statement prefix -> the lines starting with the prefix.
+         * A prefix is the part of a line up to the first ']', e.g.,
+         * "[3@L5]", which identifies the statement of the line
+         * as the statement indexes are unique in a method.
+         */
+        private final MultiMap<String, String> stmtLines = Maps.newMultiMap();
+
+        private void add(String line) {
+            lines.add(line);
+            String prefix = getStmtPrefix(line);
+            if (prefix != null) {
+                stmtLines.put(prefix, line);
+            }
+        }
+
+        /**
+         * @return the lines that may be the result of a statement
+         * whose string representation is stmtStr.
+         */
+        private Set<String> getStmtLines(String stmtStr) {
+            String prefix = getStmtPrefix(stmtStr);
+            return prefix != null ? stmtLines.get(prefix) : Set.of();
+        }
+
+        @Nullable
+        private static String getStmtPrefix(String s) {
+            if (s.startsWith("[")) {
+                int end = s.indexOf(']');
+                if (end > 0) {
+                    return s.substring(0, end + 1);
+                }
+            }
+            return null;
+        }
+    }
+
     private static Pair<String, String> extractKey(String line) {
         if (line.startsWith("----------") && line.endsWith("----------")) {
             int ms = line.indexOf('<'); // method start
@@ -166,29 +237,53 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private void processResults(Stream<JMethod> methods, List<String> analyses,
                                 BiFunction<JMethod, String, ?> resultGetter) {
-        methods.forEach(method ->
-                analyses.forEach(id -> {
-                    switch (action) {
-                        case "dump" -> dumpResult(method, id, resultGetter);
-                        case "compare" -> compareResult(method, id, resultGetter);
-                    }
-                })
-        );
+        switch (action) {
+            case "dump" -> {
+                // format the results of the methods in parallel, and write
+                // them in the order of methods, so that the output is the
+                // same as the one of dumping the methods one by one
+                methods.toList()
+                        .parallelStream()
+                        .map(method -> {
+                            StringBuilder builder = new StringBuilder();
+                            analyses.forEach(id -> dumpResult(
+                                    method, id, resultGetter, builder));
+                            return builder;
+                        })
+                        .forEachOrdered(out::append);
+            }
+            case "compare" -> {
+                // compare the methods in parallel, and collect the mismatches
+                // in the order of methods, which is deterministic
+                List<List<String>> results = methods.toList()
+                        .parallelStream()
+                        .map(method -> {
+                            List<String> methodMismatches = new ArrayList<>();
+                            analyses.forEach(id -> compareResult(
+                                    method, id, resultGetter, methodMismatches));
+                            return methodMismatches;
+                        })
+                        .toList();
+                results.forEach(mismatches::addAll);
+            }
+        }
     }
 
-    private void dumpResult(JMethod method, String id,
-                            BiFunction<JMethod, String, ?> resultGetter) {
-        out.printf("-------------------- %s (%s) --------------------%n", method, id);
+    private static void dumpResult(JMethod method, String id,
+                                   BiFunction<JMethod, String, ?> resultGetter,
+                                   StringBuilder builder) {
+        builder.append(String.format(
+                "-------------------- %s (%s) --------------------%n", method, id));
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
-            ((Set<?>) result).forEach(e -> out.println(toString(e)));
+            ((Set<?>) result).forEach(e -> builder.append(toString(e)).append(NEWLINE));
         } else if (result instanceof StmtResult<?> StmtResult) {
             IR ir = method.getIR();
-            ir.forEach(stmt -> out.println(toString(stmt, StmtResult)));
+            ir.forEach(stmt -> builder.append(toString(stmt, StmtResult)).append(NEWLINE));
         } else {
-            out.println(toString(result));
+            builder.append(toString(result)).append(NEWLINE);
         }
-        out.println();
+        builder.append(NEWLINE);
     }
 
     /**
@@ -211,9 +306,16 @@ public class ResultProcessor extends ProgramAnalysis {
         return toString(stmt) + " " + toString(result.getResult(stmt));
     }
 
+    /**
+     * Compares the result of analysis id for given method with the
+     * expected result, and adds the mismatches to methodMismatches.
+     */
     private void compareResult(JMethod method, String id,
-                               BiFunction<JMethod, String, ?> resultGetter) {
-        Set<String> inputResult = inputs.get(new Pair<>(method.toString(), id));
+                               BiFunction<JMethod, String, ?> resultGetter,
+                               List<String> methodMismatches) {
+        ExpectedResult expected = inputs.getOrDefault(
+                new Pair<>(method.toString(), id), ExpectedResult.EMPTY);
+        Set<String> inputResult = expected.lines;
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
             Set<String> given = ((Set<?>) result)
@@ -222,26 +324,25 @@ public class ResultProcessor extends ProgramAnalysis {
                     .collect(Collectors.toCollection(LinkedHashSet::new));
             given.forEach(s -> {
                 if (!inputResult.contains(s)) {
-                    mismatches.add(method + " " + s +
+                    methodMismatches.add(method + " " + s +
                             " should NOT be included");
                 }
             });
             inputResult.forEach(s -> {
                 if (!given.contains(s)) {
-                    mismatches.add(method + " " + s +
+                    methodMismatches.add(method + " " + s +
                             " should be included");
                 }
             });
         } else if (result instanceof StmtResult<?> StmtResult) {
-            Set<String> lines = inputs.get(new Pair<>(method.toString(), id));
             IR ir = method.getIR();
             ir.forEach(stmt -> {
                 String stmtStr = toString(stmt);
                 String given = toString(stmt, StmtResult);
-                for (String line : lines) {
+                for (String line : expected.getStmtLines(stmtStr)) {
                     if (line.startsWith(stmtStr) && !line.equals(given)) {
                         int idx = stmtStr.length();
-                        mismatches.add(String.format("%s %s expected: %s, given: %s",
+                        methodMismatches.add(String.format("%s %s expected: %s, given: %s",
                                 method, stmtStr, line.substring(idx + 1),
                                 given.substring(idx + 1)));
                     }
@@ -249,7 +350,7 @@ public class ResultProcessor extends ProgramAnalysis {
             });
         } else if (inputResult.size() == 1) {
             if (!toString(result).equals(getOne(inputResult))) {
-                mismatches.add(String.format("%s expected: %s, given: %s",
+                methodMismatches.add(String.format("%s expected: %s, given: %s",
                         method, getOne(inputResult), toString(result)));
             }
         } else {
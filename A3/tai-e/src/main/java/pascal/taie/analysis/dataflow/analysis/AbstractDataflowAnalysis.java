@@ -25,12 +25,20 @@ package pascal.taie.analysis.dataflow.analysis;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.dataflow.solver.SolverProfiler;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 
+/**
+ * Base class of intraprocedural data-flow analyses. As the analysis
+ * manager runs a method analysis on different methods in parallel,
+ * {@link #analyze(IR)} may be called concurrently, thus subclasses
+ * should keep the state of analyzing a method in local variables or
+ * per-method objects instead of fields.
+ */
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
@@ -39,7 +47,8 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
 
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        solver = Solver.makeSolver(this, getOptions());
+        solver.setProfiler(SolverProfiler.of(this));
     }
 
     @Override
@@ -0,0 +1,274 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.cache.ResultCache;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.dataflow.solver.SolverProfiler;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexable;
+
+import javax.annotation.Nullable;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Template of bit-vector data-flow analyses, whose facts are subsets of
+ * a finite universe of elements, e.g., the variables or the statements
+ * of a method, and whose transfer functions are of the form
+ * out = gen U (in - kill) (in = gen U (out - kill) for backward analyses).
+ * <p>
+ * The gen and kill sets of all statements are computed once before
+ * solving each method, and the facts are {@link BitSetFact}s, so that
+ * transfer functions are performed word by word. The solver is selected
+ * by option "solver", as for other data-flow analyses.
+ * <p>
+ * If option {@value ResultCache#CACHE_DIR_OPTION} is given, the results
+ * are cached on disk, with each fact encoded as the bit set of the
+ * indexes of its elements.
+ *
+ * @param <E> type of elements of the facts
+ */
+public abstract class BitVectorDataflowAnalysis<E extends Indexable>
+        extends MethodAnalysis {
+
+    @Nullable
+    private final ResultCache cache;
+
+    @Nullable
+    private final SolverProfiler profiler;
+
+    protected BitVectorDataflowAnalysis(AnalysisConfig config) {
+        super(config);
+        cache = ResultCache.of(this);
+        profiler = SolverProfiler.of(this);
+    }
+
+    /**
+     * @return true if this analysis is forward, otherwise false.
+     */
+    public abstract boolean isForward();
+
+    /**
+     * @return true if facts are merged by union at control-flow confluences
+     * (may analysis), or false if merged by intersection (must analysis).
+     */
+    protected abstract boolean isMay();
+
+    /**
+     * @return the universe of elements for given IR. The index of
+     * each element must be equal to its position in the list.
+     */
+    protected abstract List<E> getElements(IR ir);
+
+    /**
+     * Computes the gen and kill sets of the statements in given IR.
+     *
+     * @param elements the universe of elements returned by
+     *                 {@link #getElements(IR)} for the IR
+     */
+    protected abstract void computeGenKill(IR ir, List<E> elements, GenKill<E> genKill);
+
+    @Override
+    public DataflowResult<Stmt, SetFact<E>> analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        List<E> elements = getElements(ir);
+        if (cache != null) {
+            DataflowResult<Stmt, SetFact<E>> cached = cache.load(ir, "",
+                    lines -> ResultCache.decodeResult(cfg, lines, s -> decodeFact(elements, s)));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        GenKill<E> genKill = new GenKill<>(ir, elements);
+        computeGenKill(ir, elements, genKill);
+        Solver<Stmt, SetFact<E>> solver = Solver.makeSolver(new Problem(genKill), getOptions());
+        solver.setProfiler(profiler);
+        DataflowResult<Stmt, SetFact<E>> result = solver.solve(cfg);
+        if (cache != null) {
+            cache.store(ir, "", ResultCache.encodeResult(
+                    cfg, result, BitVectorDataflowAnalysis::encodeFact));
+        }
+        return result;
+    }
+
+    private static <E extends Indexable> String encodeFact(SetFact<E> fact) {
+        BitSet bits = new BitSet();
+        ((BitSetFact<E>) fact).indexes().forEach(bits::set);
+        return Base64.getEncoder().encodeToString(bits.toByteArray());
+    }
+
+    private static <E extends Indexable> SetFact<E> decodeFact(
+            List<E> elements, String s) {
+        BitSet bits = BitSet.valueOf(Base64.getDecoder().decode(s));
+        BitSetFact<E> fact = new BitSetFact<>(elements::get, elements.size());
+        bits.stream().forEach(i -> fact.add(elements.get(i)));
+        return fact;
+    }
+
+    /**
+     * Data-flow problem of a single method. Each method has its own
+     * problem, as some solvers, e.g., the block solver, keep using the
+     * problem to recompute facts on demand after solving.
+     */
+    private class Problem implements DataflowAnalysis<Stmt, SetFact<E>> {
+
+        private final GenKill<E> genKill;
+
+        private Problem(GenKill<E> genKill) {
+            this.genKill = genKill;
+        }
+
+        @Override
+        public boolean isForward() {
+            return BitVectorDataflowAnalysis.this.isForward();
+        }
+
+        @Override
+        public SetFact<E> newBoundaryFact(CFG<Stmt> cfg) {
+            return genKill.newEmptyFact();
+        }
+
+        @Override
+        public SetFact<E> newInitialFact() {
+            return isMay() ? genKill.newEmptyFact() : genKill.newFullFact();
+        }
+
+        @Override
+        public void meetInto(SetFact<E> fact, SetFact<E> target) {
+            if (isMay()) {
+                target.union(fact);
+            } else {
+                target.intersect(fact);
+            }
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<E> in, SetFact<E> out) {
+            BitSetFact<E> gen = genKill.getGen(stmt);
+            BitSetFact<E> kill = genKill.getKill(stmt);
+            return isForward() ?
+                    ((BitSetFact<E>) out).setGenKill(gen, (BitSetFact<E>) in, kill) :
+                    ((BitSetFact<E>) in).setGenKill(gen, (BitSetFact<E>) out, kill);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return false;
+        }
+
+        @Override
+        public SetFact<E> transferEdge(Edge<Stmt> edge, SetFact<E> nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Gen and kill sets of the statements in a method, indexed by
+     * {@link Stmt#getIndex()}. The sets are created on demand, and
+     * the statements without gen (kill) set share an empty set.
+     */
+    protected static class GenKill<E extends Indexable> {
+
+        private final List<E> elements;
+
+        private final BitSetFact<E>[] gens;
+
+        private final BitSetFact<E>[] kills;
+
+        private final BitSetFact<E> empty;
+
+        private GenKill(IR ir, List<E> elements) {
+            this.elements = elements;
+            int stmtCount = ir.getStmts().size();
+            gens = newArray(stmtCount);
+            kills = newArray(stmtCount);
+            empty = new BitSetFact<>(elements::get, 0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E extends Indexable> BitSetFact<E>[] newArray(int length) {
+            return (BitSetFact<E>[]) new BitSetFact<?>[length];
+        }
+
+        /**
+         * Adds element e to the gen set of stmt.
+         */
+        public void gen(Stmt stmt, E e) {
+            getOrCreate(gens, stmt).add(e);
+        }
+
+        /**
+         * Adds element e to the kill set of stmt.
+         */
+        public void kill(Stmt stmt, E e) {
+            getOrCreate(kills, stmt).add(e);
+        }
+
+        private BitSetFact<E> getOrCreate(BitSetFact<E>[] sets, Stmt stmt) {
+            BitSetFact<E> set = sets[stmt.getIndex()];
+            if (set == null) {
+                set = newEmptyFact();
+                sets[stmt.getIndex()] = set;
+            }
+            return set;
+        }
+
+        private BitSetFact<E> getGen(Stmt stmt) {
+            return get(gens, stmt);
+        }
+
+        private BitSetFact<E> getKill(Stmt stmt) {
+            return get(kills, stmt);
+        }
+
+        private BitSetFact<E> get(BitSetFact<E>[] sets, Stmt stmt) {
+            int index = stmt.getIndex();
+            // entry and exit nodes of CFG are not in the IR
+            if (index < 0 || index >= sets.length || sets[index] == null) {
+                return empty;
+            }
+            return sets[index];
+        }
+
+        private BitSetFact<E> newEmptyFact() {
+            return new BitSetFact<>(elements::get, elements.size());
+        }
+
+        private BitSetFact<E> newFullFact() {
+            BitSetFact<E> fact = newEmptyFact();
+            elements.forEach(fact::add);
+            return fact;
+        }
+    }
+}
@@ -49,6 +49,15 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * @return new initial fact for non-boundary nodes of given CFG.
+     * Analyses whose facts depend on the CFG, e.g., bit-set facts
+     * indexed by the variables of the method, should override this method.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
@@ -64,6 +73,49 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     boolean transferNode(Node node, Fact in, Fact out);
 
+    /**
+     * @return true if this analysis needs widening (and narrowing) at
+     * the heads of loops to converge, otherwise false. Widening is only
+     * performed by solvers that support it, e.g., the WTO solver.
+     */
+    default boolean needWidening() {
+        return false;
+    }
+
+    /**
+     * Widening operator, which is applied to the in (out) facts of
+     * loop heads in forward (backward) analysis.
+     *
+     * @param oldFact the fact of the loop head in last iteration
+     * @param newFact the fact of the loop head in this iteration, which
+     *                should be updated to the widened fact
+     */
+    default void widen(Node head, Fact oldFact, Fact newFact) {
+    }
+
+    /**
+     * Narrowing operator, which is applied to the in (out) facts of loop
+     * heads in forward (backward) analysis when the solver refines the
+     * results after widening. By default, newFact is kept as it is.
+     *
+     * @param oldFact the fact of the loop head in last iteration
+     * @param newFact the fact of the loop head in this iteration, which
+     *                should be updated to the narrowed fact
+     */
+    default void narrow(Node head, Fact oldFact, Fact newFact) {
+    }
+
+    /**
+     * @return true if the solver should apply the edge transfer of this
+     * analysis when meeting the facts of predecessors, otherwise false.
+     * Only the WTO solver supports edge transfer, and the other solvers
+     * would ignore it and give different results, thus an analysis
+     * returning true must run on the WTO solver.
+     */
+    default boolean hasEdgeTransfer() {
+        return false;
+    }
+
     /**
      * @return true if this analysis needs to perform transfer for given edge, otherwise false.
      */
@@ -23,9 +23,14 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.cache.ResultCache;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.SparseConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.analysis.interval.Interval;
+import pascal.taie.analysis.dataflow.analysis.interval.IntervalAnalysis;
+import pascal.taie.analysis.dataflow.analysis.interval.IntervalFact;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
@@ -33,6 +38,7 @@ import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.PrunedIR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.AssignStmt;
 import pascal.taie.ir.stmt.If;
@@ -40,18 +46,92 @@ import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
 import pascal.taie.util.collection.Pair;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.stream.Collectors;
 
 public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * If this option is true, dead code is detected by {@link #analyzeFused(IR)},
+     * which does not use the results of constant propagation and
+     * live variable analysis.
+     */
+    public static final String FUSED_OPTION = "fused";
+
+    /**
+     * If this option is true, the branches of if and switch statements
+     * whose conditions are not constant are further pruned by the results
+     * of interval analysis. This option does not affect the fused mode.
+     */
+    public static final String INTERVAL_OPTION = "interval";
+
+    @Nullable
+    private final IntervalAnalysis intervalAnalysis;
+
+    @Nullable
+    private final ResultCache cache;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        cache = ResultCache.of(this);
+        intervalAnalysis = getOptions().getBooleanOrDefault(INTERVAL_OPTION, false) ?
+                new IntervalAnalysis(new AnalysisConfig(IntervalAnalysis.ID)) : null;
     }
 
     @Override
     public Set<Stmt> analyze(IR ir) {
+        boolean fused = getOptions().getBooleanOrDefault(FUSED_OPTION, false);
+        if (cache == null) {
+            return fused ? analyzeFused(ir) : analyzeDense(ir);
+        }
+        // the result depends on the results of constant propagation and
+        // live variable analysis, unless it is computed by fused mode
+        String dependencyKey = fused ? "" : getDependencyKey(ir);
+        Set<Stmt> cached = cache.load(ir, dependencyKey, lines -> decode(ir, lines));
+        if (cached != null) {
+            return cached;
+        }
+        Set<Stmt> deadCode = fused ? analyzeFused(ir) : analyzeDense(ir);
+        cache.store(ir, dependencyKey, List.of(deadCode.stream()
+                .map(stmt -> Integer.toString(stmt.getIndex()))
+                .collect(Collectors.joining(","))));
+        return deadCode;
+    }
+
+    /**
+     * Decodes the dead code encoded as the comma-separated indexes
+     * of the statements.
+     */
+    private static Set<Stmt> decode(IR ir, List<String> lines) {
+        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        if (!lines.get(0).isEmpty()) {
+            for (String index : lines.get(0).split(",")) {
+                deadCode.add(ir.getStmt(Integer.parseInt(index)));
+            }
+        }
+        return deadCode;
+    }
+
+    /**
+     * @return the key of the results of constant propagation and live
+     * variable analysis on given IR, or null if they are not cached.
+     */
+    @Nullable
+    private static String getDependencyKey(IR ir) {
+        String constants = ResultCache.getDigest(ir, ConstantPropagation.ID);
+        String liveVars = ResultCache.getDigest(ir, LiveVariableAnalysis.ID);
+        return constants == null || liveVars == null ?
+                null : constants + " " + liveVars;
+    }
+
+    /**
+     * Detects dead code by the results of constant propagation
+     * and live variable analysis.
+     */
+    private Set<Stmt> analyzeDense(IR ir) {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         // obtain result of constant propagation
@@ -60,6 +140,9 @@ public class DeadCodeDetection extends MethodAnalysis {
         // obtain result of live variable analysis
         DataflowResult<Stmt, SetFact<Var>> liveVars =
                 ir.getResult(LiveVariableAnalysis.ID);
+        // compute intervals if needed
+        DataflowResult<Stmt, IntervalFact> intervals = intervalAnalysis != null ?
+                intervalAnalysis.analyze(ir) : null;
         // keep statements (dead code) sorted in the resulting set
         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
         // TODO - finish me
@@ -82,6 +165,9 @@ public class DeadCodeDetection extends MethodAnalysis {
                 // Edge.Kind.IF_TRUE.ordinal(): always true
                 // -1: unknown
                 int conditionValue = evalConditionExp(ifStmt, conditionExp, constants);
+                if (conditionValue < 0 && intervals != null) {
+                    conditionValue = evalConditionByIntervals(ifStmt, conditionExp, intervals);
+                }
                 if (conditionValue >= 0) {
                     // always true or false
                     Edge.Kind targetKind = Edge.Kind.values()[conditionValue];
@@ -113,8 +199,17 @@ public class DeadCodeDetection extends MethodAnalysis {
                     // don't worry, we check the null value and handle the default case uniformly after 'else if'.
                     visitStmt(priorityCase, unvisited, stack);
                 } else if (caseAbstractValue.isNAC()){
-                    switchStmt.getCaseTargets()
-                        .forEach( caseTargetPair -> visitStmt(caseTargetPair.second(), unvisited, stack));
+                    Interval range = intervals != null ?
+                            intervals.getInFact(switchStmt).get(switchVar) : Interval.getTop();
+                    if (range.isBottom()) {
+                        range = Interval.getTop();
+                    }
+                    for (Pair<Integer, Stmt> caseTargetPair : switchStmt.getCaseTargets()) {
+                        if (range.contains(caseTargetPair.first())) {
+                            visitStmt(caseTargetPair.second(), unvisited, stack);
+                        }
+                    }
+                    defaultCaseReachable = !coversRange(switchStmt.getCaseValues(), range);
                 }
                 if (defaultCaseReachable) {
                     visitStmt(switchStmt.getDefaultTarget(), unvisited, stack);
@@ -143,6 +238,113 @@ public class DeadCodeDetection extends MethodAnalysis {
         return deadCode;
     }
 
+    /**
+     * @return a view of given IR without the dead code detected in it,
+     * which is used by the analyses that only iterate over the statements
+     * (e.g., call graph construction and pointer analysis) to skip
+     * unreachable branches and dead assignments. If dead code detection
+     * has not been run on the IR, then returns the IR itself.
+     * @see PrunedIR
+     */
+    public static IR prune(IR ir) {
+        Set<Stmt> deadCode = ir.getResult(ID, (Set<Stmt>) null);
+        return deadCode == null || deadCode.isEmpty() ?
+                ir : new PrunedIR(ir, deadCode);
+    }
+
+    /**
+     * Detects dead code without the results of other dataflow analyses.
+     * Sparse conditional constant propagation finds the executable
+     * statements and CFG edges, which covers unreachable code and
+     * unreachable branches, and then liveness is computed only over
+     * the executable part of the CFG to find dead assignments.
+     */
+    private Set<Stmt> analyzeFused(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        SparseConstantPropagation sccp = new SparseConstantPropagation(ir);
+        sccp.propagate();
+        BitSet[] liveIns = computeLiveIns(ir, cfg, sccp);
+        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        for (Stmt stmt : ir) {
+            if (!sccp.isExecutable(stmt)) {
+                deadCode.add(stmt);
+            } else if (stmt instanceof AssignStmt<?, ?> assignStmt &&
+                    assignStmt.getLValue() instanceof Var var &&
+                    hasNoSideEffect(assignStmt.getRValue()) &&
+                    !getLiveOut(stmt, cfg, sccp, liveIns).get(var.getIndex())) {
+                deadCode.add(stmt);
+            }
+        }
+        return deadCode;
+    }
+
+    /**
+     * Computes the live variables before each executable statement,
+     * following only the executable CFG edges.
+     *
+     * @return statement index -> the indexes of variables live before
+     * the statement.
+     */
+    private static BitSet[] computeLiveIns(
+            IR ir, CFG<Stmt> cfg, SparseConstantPropagation sccp) {
+        List<Stmt> stmts = ir.getStmts();
+        BitSet[] liveIns = new BitSet[stmts.size()];
+        boolean[] inQueue = new boolean[stmts.size()];
+        Queue<Stmt> queue = new ArrayDeque<>();
+        // visit statements in reverse order, which approximates
+        // the order of backward propagation
+        for (int i = stmts.size() - 1; i >= 0; --i) {
+            liveIns[i] = new BitSet();
+            Stmt stmt = stmts.get(i);
+            if (sccp.isExecutable(stmt)) {
+                queue.add(stmt);
+                inQueue[i] = true;
+            }
+        }
+        while (!queue.isEmpty()) {
+            Stmt stmt = queue.poll();
+            inQueue[stmt.getIndex()] = false;
+            BitSet in = getLiveOut(stmt, cfg, sccp, liveIns);
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var) {
+                    in.clear(var.getIndex());
+                }
+            });
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var) {
+                    in.set(var.getIndex());
+                }
+            }
+            if (!in.equals(liveIns[stmt.getIndex()])) {
+                liveIns[stmt.getIndex()] = in;
+                for (Edge<Stmt> inEdge : cfg.getInEdgesOf(stmt)) {
+                    Stmt pred = inEdge.getSource();
+                    if (!cfg.isEntry(pred) && sccp.isExecutable(inEdge) &&
+                            !inQueue[pred.getIndex()]) {
+                        queue.add(pred);
+                        inQueue[pred.getIndex()] = true;
+                    }
+                }
+            }
+        }
+        return liveIns;
+    }
+
+    /**
+     * @return the indexes of variables live after given statement.
+     */
+    private static BitSet getLiveOut(Stmt stmt, CFG<Stmt> cfg,
+            SparseConstantPropagation sccp, BitSet[] liveIns) {
+        BitSet out = new BitSet();
+        for (Edge<Stmt> outEdge : cfg.getOutEdgesOf(stmt)) {
+            Stmt succ = outEdge.getTarget();
+            if (!cfg.isExit(succ) && sccp.isExecutable(outEdge)) {
+                out.or(liveIns[succ.getIndex()]);
+            }
+        }
+        return out;
+    }
+
     public int evalConditionExp(Stmt stmt, ConditionExp exp, DataflowResult<Stmt, CPFact> constants) {
         CPFact fact = constants.getResult(stmt);
         Var opd1 = exp.getOperand1();
@@ -167,6 +369,47 @@ public class DeadCodeDetection extends MethodAnalysis {
         return -1;
     }
 
+    /**
+     * Evaluates the condition by the intervals of its operands.
+     *
+     * @return the same as {@link #evalConditionExp(Stmt, ConditionExp, DataflowResult)}.
+     */
+    private static int evalConditionByIntervals(Stmt stmt, ConditionExp exp,
+                                                DataflowResult<Stmt, IntervalFact> intervals) {
+        Var opd1 = exp.getOperand1();
+        Var opd2 = exp.getOperand2();
+        if (!ConstantPropagation.canHoldInt(opd1) ||
+                !ConstantPropagation.canHoldInt(opd2)) {
+            return -1;
+        }
+        IntervalFact fact = intervals.getInFact(stmt);
+        Interval cond = IntervalAnalysis.evaluateCondition(
+                exp.getOperator(), fact.get(opd1), fact.get(opd2));
+        if (!cond.isBottom() && cond.isConstant()) {
+            return cond.getLower() != 0 ?
+                    Edge.Kind.IF_TRUE.ordinal() : Edge.Kind.IF_FALSE.ordinal();
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if every value in range is one of given case values,
+     * i.e., the default target of the switch is unreachable.
+     */
+    private static boolean coversRange(List<Integer> caseValues, Interval range) {
+        if (range.size() > caseValues.size()) {
+            return false;
+        }
+        for (int v = range.getLower(); ; ++v) {
+            if (!caseValues.contains(v)) {
+                return false;
+            }
+            if (v == range.getUpper()) {
+                return true;
+            }
+        }
+    }
+
     public void visitStmt(Stmt stmt, Set<Stmt> unvisited, Stack<Stmt> stack) {
         if (stmt != null && unvisited.remove(stmt)) stack.push(stmt);
     }
@@ -22,22 +22,18 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
-import pascal.taie.analysis.dataflow.fact.SetFact;
-import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
-import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Implementation of classic live variable analysis.
  */
-public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+public class LiveVariableAnalysis extends BitVectorDataflowAnalysis<Var> {
 
     public static final String ID = "livevar";
 
@@ -51,38 +47,28 @@ public class LiveVariableAnalysis extends
     }
 
     @Override
-    public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
-        // TODO - finish me
-        return new SetFact<Var>();
-//        return null;
+    protected boolean isMay() {
+        return true;
     }
 
     @Override
-    public SetFact<Var> newInitialFact() {
-        // TODO - finish me
-        return new SetFact<Var>();
-//        return null;
+    protected List<Var> getElements(IR ir) {
+        return ir.getVars();
     }
 
     @Override
-    public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
-        // TODO - finish me
-        target.union(fact);
-    }
-
-    @Override
-    public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        // TODO - finish me
-        SetFact<Var> outCopy = out.copy();
-        Optional<LValue> lValue = stmt.getDef();
-        if (lValue.isPresent() && lValue.get() instanceof Var) {
-            outCopy.remove((Var)lValue.get());
-        }
-        List<RValue> rValues = stmt.getUses();
-        for (RValue rValue:rValues) {
-            if (rValue instanceof Var)outCopy.add((Var)rValue);
+    protected void computeGenKill(IR ir, List<Var> elements, GenKill<Var> genKill) {
+        for (Stmt stmt : ir) {
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var) {
+                    genKill.kill(stmt, var);
+                }
+            });
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var) {
+                    genKill.gen(stmt, var);
+                }
+            }
         }
-        return in.union(outCopy);
-//        return false;
     }
 }
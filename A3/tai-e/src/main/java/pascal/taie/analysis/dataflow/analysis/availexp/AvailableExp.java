@@ -0,0 +1,68 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.availexp;
+
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.util.Indexable;
+
+/**
+ * Represents an expression in available expression analysis.
+ * Within a method, all binary expressions with the same operator and
+ * operands are represented by the same available expression.
+ */
+public class AvailableExp implements Indexable {
+
+    /**
+     * One of the binary expressions represented by this object.
+     */
+    private final BinaryExp exp;
+
+    private final int index;
+
+    AvailableExp(BinaryExp exp, int index) {
+        this.exp = exp;
+        this.index = index;
+    }
+
+    public BinaryExp getExp() {
+        return exp;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return true if this expression uses given variable, otherwise false.
+     */
+    public boolean uses(Var var) {
+        return exp.getOperand1() == var || exp.getOperand2() == var;
+    }
+
+    @Override
+    public String toString() {
+        return exp.toString();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.availexp;
+
+import pascal.taie.analysis.dataflow.analysis.BitVectorDataflowAnalysis;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of classic available expression analysis.
+ * Only binary expressions are considered.
+ */
+public class AvailableExpressionAnalysis extends
+        BitVectorDataflowAnalysis<AvailableExp> {
+
+    public static final String ID = "availexp";
+
+    public AvailableExpressionAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public boolean isForward() {
+        return true;
+    }
+
+    @Override
+    protected boolean isMay() {
+        return false;
+    }
+
+    @Override
+    protected List<AvailableExp> getElements(IR ir) {
+        return new ArrayList<>(collectExps(ir).values());
+    }
+
+    @Override
+    protected void computeGenKill(IR ir, List<AvailableExp> elements,
+                                  GenKill<AvailableExp> genKill) {
+        // use the same expression objects as the elements of the facts
+        Map<Key, AvailableExp> exps = Maps.newMap(elements.size());
+        // variable -> expressions that use it
+        MultiMap<Var, AvailableExp> users = Maps.newMultiMap();
+        elements.forEach(exp -> {
+            exps.put(Key.of(exp.getExp()), exp);
+            users.put(exp.getExp().getOperand1(), exp);
+            users.put(exp.getExp().getOperand2(), exp);
+        });
+        for (Stmt stmt : ir) {
+            Var def = stmt.getDef()
+                    .filter(lValue -> lValue instanceof Var)
+                    .map(lValue -> (Var) lValue)
+                    .orElse(null);
+            if (def != null) {
+                users.get(def).forEach(exp -> genKill.kill(stmt, exp));
+            }
+            if (stmt instanceof Binary binary) {
+                AvailableExp exp = exps.get(Key.of(binary.getRValue()));
+                // x = x + 1 does not make x + 1 available
+                if (!exp.uses(binary.getLValue())) {
+                    genKill.gen(stmt, exp);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return all binary expressions in given IR, in the order of
+     * their first occurrences.
+     */
+    private static Map<Key, AvailableExp> collectExps(IR ir) {
+        Map<Key, AvailableExp> exps = new LinkedHashMap<>();
+        for (Stmt stmt : ir) {
+            if (stmt instanceof Binary binary) {
+                BinaryExp exp = binary.getRValue();
+                exps.computeIfAbsent(Key.of(exp),
+                        k -> new AvailableExp(exp, exps.size()));
+            }
+        }
+        return exps;
+    }
+
+    /**
+     * Binary expressions with the same key are the same expression.
+     */
+    private record Key(BinaryExp.Op op, Var operand1, Var operand2) {
+
+        private static Key of(BinaryExp exp) {
+            return new Key(exp.getOperator(), exp.getOperand1(), exp.getOperand2());
+        }
+    }
+}
@@ -24,9 +24,7 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
-
-import java.util.Collections;
-import java.util.Map;
+import pascal.taie.util.collection.PersistentMap;
 
 /**
  * Represents data facts of constant propagation, which maps variables
@@ -41,10 +39,10 @@ import java.util.Map;
 public class CPFact extends MapFact<Var, Value> {
 
     public CPFact() {
-        this(Collections.emptyMap());
+        this(PersistentMap.empty());
     }
 
-    private CPFact(Map<Var, Value> map) {
+    private CPFact(PersistentMap<Var, Value> map) {
         super(map);
     }
 
@@ -54,7 +52,8 @@ public class CPFact extends MapFact<Var, Value> {
      */
     @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        Value value = map.get(key);
+        return value != null ? value : Value.getUndef();
     }
 
     @Override
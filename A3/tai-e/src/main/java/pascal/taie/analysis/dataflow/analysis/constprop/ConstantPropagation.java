@@ -23,7 +23,10 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.cache.ResultCache;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
@@ -33,13 +36,75 @@ import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
 public class ConstantPropagation extends
         AbstractDataflowAnalysis<Stmt, CPFact> {
 
     public static final String ID = "constprop";
 
+    /**
+     * If this option is true, the analysis runs sparse conditional
+     * constant propagation instead of the data-flow solver.
+     *
+     * @see SparseConstantPropagation
+     */
+    public static final String SPARSE_OPTION = "sparse";
+
+    @Nullable
+    private final ResultCache cache;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        cache = ResultCache.of(this);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        if (cache != null) {
+            DataflowResult<Stmt, CPFact> cached = cache.load(ir, "",
+                    lines -> ResultCache.decodeResult(cfg, lines, s -> decodeFact(ir, s)));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        DataflowResult<Stmt, CPFact> result =
+                getOptions().getBooleanOrDefault(SPARSE_OPTION, false) ?
+                        new SparseConstantPropagation(ir).solve() :
+                        super.analyze(ir);
+        if (cache != null) {
+            cache.store(ir, "", ResultCache.encodeResult(
+                    cfg, result, ConstantPropagation::encodeFact));
+        }
+        return result;
+    }
+
+    /**
+     * Encodes a fact as comma-separated "index=value" of its variables,
+     * sorted by index, where value is either a constant or "NAC".
+     */
+    private static String encodeFact(CPFact fact) {
+        return fact.entries()
+                .sorted(Comparator.comparingInt(e -> e.getKey().getIndex()))
+                .map(e -> e.getKey().getIndex() + "=" + e.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    private static CPFact decodeFact(IR ir, String s) {
+        CPFact fact = new CPFact();
+        if (!s.isEmpty()) {
+            for (String entry : s.split(",")) {
+                int eq = entry.indexOf('=');
+                String value = entry.substring(eq + 1);
+                fact.update(ir.getVar(Integer.parseInt(entry.substring(0, eq))),
+                        value.equals("NAC") ? Value.getNAC() :
+                                Value.makeConstant(Integer.parseInt(value)));
+            }
+        }
+        return fact;
     }
 
     @Override
@@ -0,0 +1,506 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Sparse conditional constant propagation (SCCP) of a method.
+ * <p>
+ * As Tai-e IR is not in SSA form, the sparse representation is built on
+ * definitions instead of SSA variables: each definition of an int variable
+ * (including the implicit definition of each parameter at the entry)
+ * holds one lattice value, and the value of a variable used at a statement
+ * is the meet of the values of its definitions reaching the statement,
+ * which plays the role of phi functions. The def-use chains are computed
+ * by reaching definitions on the CFG.
+ * <p>
+ * Besides the lattice values, the analysis tracks executable CFG edges,
+ * so that the definitions on the branches which are never taken do not
+ * pollute the values. The per-statement {@link CPFact}s are only built
+ * when they are queried from the result of {@link #solve()}; clients that
+ * need only a few values can call {@link #propagate()} and query them by
+ * {@link #getValue(Stmt, Var)} and {@link #isExecutable(Stmt)} instead.
+ */
+public class SparseConstantPropagation {
+
+    private final IR ir;
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Number of statements in the IR. The entry and exit nodes of the CFG,
+     * which are not in the IR, are numbered as n and n + 1.
+     */
+    private final int n;
+
+    /**
+     * Defined variables, indexed by definition. The first definitions
+     * are the ones of parameters at the entry.
+     */
+    private final List<Var> defVars = new ArrayList<>();
+
+    /**
+     * Statement number -> the definition at the statement, or -1.
+     */
+    private final int[] stmt2Def;
+
+    /**
+     * Variable index -> the definitions of the variable.
+     */
+    private final BitSet[] varDefs;
+
+    /**
+     * Node number -> the definitions reaching the node.
+     */
+    private final BitSet[] reachingDefs;
+
+    /**
+     * Definition -> the statements using the definition.
+     */
+    private final List<List<Stmt>> defUses = new ArrayList<>();
+
+    /**
+     * Lattice values of definitions.
+     */
+    private final Value[] values;
+
+    private final boolean[] executable;
+
+    private final Set<Edge<Stmt>> executableEdges = Sets.newSet();
+
+    public SparseConstantPropagation(IR ir) {
+        this.ir = ir;
+        this.cfg = ir.getResult(CFGBuilder.ID);
+        this.n = ir.getStmts().size();
+        this.stmt2Def = new int[n + 2];
+        this.varDefs = new BitSet[ir.getVars().size()];
+        this.reachingDefs = new BitSet[n + 2];
+        this.executable = new boolean[n + 2];
+        collectDefs();
+        this.values = new Value[defVars.size()];
+        computeReachingDefs();
+        buildDefUses();
+    }
+
+    private int getNumber(Stmt node) {
+        if (cfg.isEntry(node)) {
+            return n;
+        } else if (cfg.isExit(node)) {
+            return n + 1;
+        } else {
+            return node.getIndex();
+        }
+    }
+
+    /**
+     * @return the int variable defined by given statement, or null.
+     */
+    private static Var getDefVar(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var var &&
+                ConstantPropagation.canHoldInt(var)) {
+            return var;
+        }
+        return null;
+    }
+
+    private void addDef(Var var) {
+        int def = defVars.size();
+        defVars.add(var);
+        defUses.add(new ArrayList<>());
+        BitSet defs = varDefs[var.getIndex()];
+        if (defs == null) {
+            defs = varDefs[var.getIndex()] = new BitSet();
+        }
+        defs.set(def);
+    }
+
+    private void collectDefs() {
+        ir.getParams().forEach(param -> {
+            if (ConstantPropagation.canHoldInt(param)) {
+                addDef(param);
+            }
+        });
+        Arrays.fill(stmt2Def, -1);
+        for (Stmt stmt : ir) {
+            Var var = getDefVar(stmt);
+            if (var != null) {
+                stmt2Def[stmt.getIndex()] = defVars.size();
+                addDef(var);
+            }
+        }
+    }
+
+    /**
+     * Computes the definitions reaching each node, i.e.,
+     * the in facts of reaching definition analysis.
+     */
+    private void computeReachingDefs() {
+        BitSet[] outDefs = new BitSet[n + 2];
+        Stmt[] nodes = new Stmt[n + 2];
+        boolean[] inQueue = new boolean[n + 2];
+        Queue<Stmt> queue = new ArrayDeque<>();
+        for (Stmt node : cfg) {
+            int i = getNumber(node);
+            nodes[i] = node;
+            reachingDefs[i] = new BitSet();
+            outDefs[i] = new BitSet();
+            queue.add(node);
+            inQueue[i] = true;
+        }
+        // parameters are defined at the entry
+        int paramDefs = (int) ir.getParams().stream()
+                .filter(ConstantPropagation::canHoldInt)
+                .count();
+        outDefs[n].set(0, paramDefs);
+        while (!queue.isEmpty()) {
+            Stmt node = queue.poll();
+            int i = getNumber(node);
+            inQueue[i] = false;
+            if (cfg.isEntry(node)) {
+                continue;
+            }
+            BitSet in = reachingDefs[i];
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                in.or(outDefs[getNumber(pred)]);
+            }
+            BitSet out = (BitSet) in.clone();
+            int def = stmt2Def[i];
+            if (def >= 0) {
+                out.andNot(varDefs[defVars.get(def).getIndex()]);
+                out.set(def);
+            }
+            if (!out.equals(outDefs[i])) {
+                outDefs[i] = out;
+                for (Stmt succ : cfg.getSuccsOf(node)) {
+                    int s = getNumber(succ);
+                    if (!inQueue[s]) {
+                        queue.add(nodes[s]);
+                        inQueue[s] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the int variables used by given statement.
+     */
+    private static List<Var> getUseVars(Stmt stmt) {
+        List<Var> vars = new ArrayList<>(2);
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var && ConstantPropagation.canHoldInt(var)
+                    && !vars.contains(var)) {
+                vars.add(var);
+            }
+        }
+        return vars;
+    }
+
+    private void buildDefUses() {
+        for (Stmt stmt : ir) {
+            BitSet in = reachingDefs[stmt.getIndex()];
+            for (Var var : getUseVars(stmt)) {
+                BitSet defs = varDefs[var.getIndex()];
+                if (defs == null) {
+                    continue;
+                }
+                for (int d = defs.nextSetBit(0); d >= 0; d = defs.nextSetBit(d + 1)) {
+                    if (in.get(d)) {
+                        defUses.get(d).add(stmt);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs SCCP on the method.
+     *
+     * @return the result in the same shape as the one of
+     * {@link ConstantPropagation}.
+     */
+    public DataflowResult<Stmt, CPFact> solve() {
+        propagate();
+        return new Result();
+    }
+
+    /**
+     * Runs SCCP on the method without building its result.
+     */
+    public void propagate() {
+        Arrays.fill(values, Value.getUndef());
+        Queue<Edge<Stmt>> flowWorkList = new ArrayDeque<>();
+        Queue<Stmt> defWorkList = new ArrayDeque<>();
+        Stmt entry = cfg.getEntry();
+        executable[n] = true;
+        ir.getParams().forEach(param -> {
+            if (ConstantPropagation.canHoldInt(param)) {
+                values[varDefs[param.getIndex()].nextSetBit(0)] = Value.getNAC();
+            }
+        });
+        flowWorkList.addAll(cfg.getOutEdgesOf(entry));
+        do {
+            while (!flowWorkList.isEmpty() || !defWorkList.isEmpty()) {
+                while (!flowWorkList.isEmpty()) {
+                    Edge<Stmt> edge = flowWorkList.poll();
+                    if (executableEdges.add(edge)) {
+                        Stmt target = edge.getTarget();
+                        int t = getNumber(target);
+                        if (!executable[t]) {
+                            executable[t] = true;
+                            visit(target, flowWorkList, defWorkList);
+                        }
+                    }
+                }
+                while (!defWorkList.isEmpty()) {
+                    Stmt stmt = defWorkList.poll();
+                    if (executable[getNumber(stmt)]) {
+                        visit(stmt, flowWorkList, defWorkList);
+                    }
+                }
+            }
+        } while (addUndecidedBranches(flowWorkList));
+    }
+
+    /**
+     * Adds all out edges of the executable if and switch statements whose
+     * conditions are still UNDEF at the fixed point. Such a condition is
+     * never defined (e.g., the result of a long comparison, which is not
+     * tracked), and the dense analysis does not decide its branches either.
+     *
+     * @return true if any edge is added, otherwise false.
+     */
+    private boolean addUndecidedBranches(Queue<Edge<Stmt>> flowWorkList) {
+        for (Stmt stmt : ir) {
+            if (executable[stmt.getIndex()]) {
+                Value cond;
+                if (stmt instanceof If ifStmt) {
+                    cond = evaluateCondition(ifStmt);
+                } else if (stmt instanceof SwitchStmt switchStmt) {
+                    cond = getValue(stmt, switchStmt.getVar());
+                } else {
+                    continue;
+                }
+                if (cond.isUndef()) {
+                    cfg.getOutEdgesOf(stmt)
+                            .stream()
+                            .filter(edge -> !executableEdges.contains(edge))
+                            .forEach(flowWorkList::add);
+                }
+            }
+        }
+        return !flowWorkList.isEmpty();
+    }
+
+    /**
+     * Evaluates the condition of given if statement. The condition is NAC
+     * if any operand cannot hold int, e.g., the null checks and the
+     * comparisons of references, as such values are not tracked.
+     */
+    private Value evaluateCondition(If ifStmt) {
+        ConditionExp condition = ifStmt.getCondition();
+        if (!ConstantPropagation.canHoldInt(condition.getOperand1()) ||
+                !ConstantPropagation.canHoldInt(condition.getOperand2())) {
+            return Value.getNAC();
+        }
+        return ConstantPropagation.evaluate(condition, getOperands(ifStmt));
+    }
+
+    /**
+     * Evaluates given (executable) statement, updates the value of its
+     * definition and adds its executable out edges.
+     */
+    private void visit(Stmt stmt, Queue<Edge<Stmt>> flowWorkList,
+                       Queue<Stmt> defWorkList) {
+        if (cfg.isExit(stmt)) {
+            return;
+        }
+        int def = stmt2Def[stmt.getIndex()];
+        if (def >= 0) {
+            RValue rValue = ((DefinitionStmt<?, ?>) stmt).getRValue();
+            Value value = meet(values[def],
+                    ConstantPropagation.evaluate(rValue, getOperands(stmt)));
+            if (!value.equals(values[def])) {
+                values[def] = value;
+                defWorkList.addAll(defUses.get(def));
+            }
+        }
+        if (stmt instanceof If ifStmt) {
+            Value cond = evaluateCondition(ifStmt);
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                Edge.Kind kind = edge.getKind();
+                if (cond.isNAC() ||
+                        (kind != Edge.Kind.IF_TRUE && kind != Edge.Kind.IF_FALSE) ||
+                        (cond.isConstant() &&
+                                (cond.getConstant() != 0) == (kind == Edge.Kind.IF_TRUE))) {
+                    flowWorkList.add(edge);
+                }
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value var = getValue(stmt, switchStmt.getVar());
+            boolean hasMatchedCase = var.isConstant() &&
+                    switchStmt.getCaseValues().contains(var.getConstant());
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                Edge.Kind kind = edge.getKind();
+                if (var.isNAC() ||
+                        (kind != Edge.Kind.SWITCH_CASE && kind != Edge.Kind.SWITCH_DEFAULT) ||
+                        (var.isConstant() && (edge.isSwitchCase() ?
+                                edge.getCaseValue() == var.getConstant() :
+                                !hasMatchedCase))) {
+                    flowWorkList.add(edge);
+                }
+            }
+        } else {
+            flowWorkList.addAll(cfg.getOutEdgesOf(stmt));
+        }
+    }
+
+    private static Value meet(Value v1, Value v2) {
+        if (v1.isUndef()) {
+            return v2;
+        } else if (v2.isUndef() || v1.equals(v2)) {
+            return v1;
+        } else {
+            return Value.getNAC();
+        }
+    }
+
+    /**
+     * @return the value of var before given statement, i.e., the meet of
+     * the values of the definitions of var reaching the statement.
+     */
+    public Value getValue(Stmt stmt, Var var) {
+        BitSet defs = varDefs[var.getIndex()];
+        Value value = Value.getUndef();
+        if (defs != null) {
+            BitSet in = reachingDefs[getNumber(stmt)];
+            for (int d = defs.nextSetBit(0); d >= 0; d = defs.nextSetBit(d + 1)) {
+                if (in.get(d)) {
+                    value = meet(value, values[d]);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return a fact containing the values of the variables used by
+     * given statement, which suffices to evaluate the statement.
+     */
+    private CPFact getOperands(Stmt stmt) {
+        CPFact operands = new CPFact();
+        for (Var var : getUseVars(stmt)) {
+            operands.update(var, getValue(stmt, var));
+        }
+        return operands;
+    }
+
+    /**
+     * @return true if given CFG node may be executed, otherwise false.
+     */
+    public boolean isExecutable(Stmt node) {
+        return executable[getNumber(node)];
+    }
+
+    /**
+     * @return true if given CFG edge may be taken, otherwise false.
+     */
+    public boolean isExecutable(Edge<Stmt> edge) {
+        return executableEdges.contains(edge);
+    }
+
+    /**
+     * Result of SCCP, which builds the facts of each statement when
+     * they are queried. The facts of non-executable statements are empty.
+     */
+    private class Result extends DataflowResult<Stmt, CPFact> {
+
+        @Override
+        public CPFact getInFact(Stmt node) {
+            if (cfg.isEntry(node)) {
+                return null;
+            }
+            CPFact fact = new CPFact();
+            int i = getNumber(node);
+            if (executable[i]) {
+                BitSet in = reachingDefs[i];
+                for (int d = in.nextSetBit(0); d >= 0; d = in.nextSetBit(d + 1)) {
+                    Var var = defVars.get(d);
+                    fact.update(var, meet(fact.get(var), values[d]));
+                }
+            }
+            return fact;
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt node) {
+            if (cfg.isEntry(node)) {
+                CPFact fact = new CPFact();
+                ir.getParams().forEach(param -> {
+                    if (ConstantPropagation.canHoldInt(param)) {
+                        fact.update(param, Value.getNAC());
+                    }
+                });
+                return fact;
+            }
+            CPFact fact = getInFact(node);
+            int i = getNumber(node);
+            if (executable[i] && !cfg.isExit(node) && stmt2Def[i] >= 0) {
+                fact.update(defVars.get(stmt2Def[i]), values[stmt2Def[i]]);
+            }
+            return fact;
+        }
+
+        @Override
+        public void setInFact(Stmt node, CPFact fact) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setOutFact(Stmt node, CPFact fact) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
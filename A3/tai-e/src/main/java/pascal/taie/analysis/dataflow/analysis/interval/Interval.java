@@ -0,0 +1,335 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.interval;
+
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.util.AnalysisException;
+
+/**
+ * Represents lattice values in interval analysis, i.e., ranges
+ * [lower, upper] of int values. The bottom interval (the empty range)
+ * represents undefined values, and the top interval is the range
+ * of all int values.
+ * <p>
+ * The arithmetic operations follow the semantics of Java int,
+ * i.e., if an operation may overflow, its result is the top interval.
+ */
+public class Interval {
+
+    private static final Interval BOTTOM = new Interval(1, 0);
+
+    private static final Interval TOP =
+            new Interval(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    private final int lower;
+
+    private final int upper;
+
+    private Interval(int lower, int upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * @return the bottom interval.
+     */
+    public static Interval getBottom() {
+        return BOTTOM;
+    }
+
+    /**
+     * @return the top interval.
+     */
+    public static Interval getTop() {
+        return TOP;
+    }
+
+    /**
+     * @return the interval [lower, upper], or the bottom interval
+     * if lower is greater than upper.
+     */
+    public static Interval of(int lower, int upper) {
+        if (lower > upper) {
+            return BOTTOM;
+        } else if (lower == Integer.MIN_VALUE && upper == Integer.MAX_VALUE) {
+            return TOP;
+        }
+        return new Interval(lower, upper);
+    }
+
+    /**
+     * @return the interval containing only given value.
+     */
+    public static Interval ofConstant(int value) {
+        return new Interval(value, value);
+    }
+
+    /**
+     * @return the interval [lower, upper] if both bounds are in the range
+     * of int, otherwise the top interval.
+     */
+    static Interval ofLong(long lower, long upper) {
+        if (lower < Integer.MIN_VALUE || upper > Integer.MAX_VALUE) {
+            return TOP;
+        }
+        return of((int) lower, (int) upper);
+    }
+
+    /**
+     * @return the interval of all values of given type.
+     */
+    public static Interval ofType(PrimitiveType type) {
+        return switch (type) {
+            case BOOLEAN -> of(0, 1);
+            case BYTE -> of(Byte.MIN_VALUE, Byte.MAX_VALUE);
+            case SHORT -> of(Short.MIN_VALUE, Short.MAX_VALUE);
+            case CHAR -> of(Character.MIN_VALUE, Character.MAX_VALUE);
+            default -> TOP;
+        };
+    }
+
+    /**
+     * Encodes this interval as a long, with the lower bound in the high
+     * 32 bits and the complement of the upper bound in the low 32 bits,
+     * so that the bottom interval is encoded as 0.
+     */
+    long encode() {
+        if (isBottom()) {
+            return 0L;
+        }
+        return ((long) lower << 32) | (~upper & 0xffffffffL);
+    }
+
+    /**
+     * Decodes an interval encoded by {@link #encode()}.
+     */
+    static Interval decode(long encoded) {
+        if (encoded == 0L) {
+            return BOTTOM;
+        }
+        return of((int) (encoded >> 32), ~(int) encoded);
+    }
+
+    /**
+     * @return true if this interval is the bottom interval, otherwise false.
+     */
+    public boolean isBottom() {
+        return lower > upper;
+    }
+
+    /**
+     * @return true if this interval is the top interval, otherwise false.
+     */
+    public boolean isTop() {
+        return lower == Integer.MIN_VALUE && upper == Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return true if this interval contains exactly one value, otherwise false.
+     */
+    public boolean isConstant() {
+        return lower == upper;
+    }
+
+    /**
+     * @throws AnalysisException if this interval is the bottom interval
+     */
+    public int getLower() {
+        checkNotBottom();
+        return lower;
+    }
+
+    /**
+     * @throws AnalysisException if this interval is the bottom interval
+     */
+    public int getUpper() {
+        checkNotBottom();
+        return upper;
+    }
+
+    private void checkNotBottom() {
+        if (isBottom()) {
+            throw new AnalysisException("bottom interval has no bounds");
+        }
+    }
+
+    /**
+     * @return the number of values in this interval.
+     */
+    public long size() {
+        return isBottom() ? 0 : (long) upper - lower + 1;
+    }
+
+    public boolean contains(int value) {
+        return lower <= value && value <= upper;
+    }
+
+    /**
+     * @return the smallest interval containing both this and other.
+     */
+    public Interval join(Interval other) {
+        if (isBottom()) {
+            return other;
+        } else if (other.isBottom()) {
+            return this;
+        }
+        return of(Math.min(lower, other.lower), Math.max(upper, other.upper));
+    }
+
+    /**
+     * @return the intersection of this and other.
+     */
+    public Interval intersect(Interval other) {
+        if (isBottom() || other.isBottom()) {
+            return BOTTOM;
+        }
+        return of(Math.max(lower, other.lower), Math.min(upper, other.upper));
+    }
+
+    /**
+     * Widening operator: the bounds of this (old) interval that are
+     * exceeded by newer are moved to the extremes of int, thus each bound
+     * changes at most once after widening starts.
+     */
+    public Interval widen(Interval newer) {
+        if (isBottom()) {
+            return newer;
+        } else if (newer.isBottom()) {
+            return this;
+        }
+        return of(newer.lower < lower ? Integer.MIN_VALUE : lower,
+                newer.upper > upper ? Integer.MAX_VALUE : upper);
+    }
+
+    /**
+     * Narrowing operator: the infinite bounds of this (old, widened)
+     * interval are replaced by the ones of newer.
+     */
+    public Interval narrow(Interval newer) {
+        if (isBottom() || newer.isBottom()) {
+            return newer;
+        }
+        return of(lower == Integer.MIN_VALUE ? newer.lower : lower,
+                upper == Integer.MAX_VALUE ? newer.upper : upper);
+    }
+
+    public Interval add(Interval other) {
+        if (isBottom() || other.isBottom()) {
+            return BOTTOM;
+        }
+        return ofLong((long) lower + other.lower, (long) upper + other.upper);
+    }
+
+    public Interval sub(Interval other) {
+        if (isBottom() || other.isBottom()) {
+            return BOTTOM;
+        }
+        return ofLong((long) lower - other.upper, (long) upper - other.lower);
+    }
+
+    public Interval mul(Interval other) {
+        if (isBottom() || other.isBottom()) {
+            return BOTTOM;
+        }
+        long p1 = (long) lower * other.lower, p2 = (long) lower * other.upper;
+        long p3 = (long) upper * other.lower, p4 = (long) upper * other.upper;
+        return ofLong(Math.min(Math.min(p1, p2), Math.min(p3, p4)),
+                Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+    }
+
+    /**
+     * @return the result of dividing this by other. The division by zero
+     * is undefined, thus the zero in the divisor is excluded.
+     */
+    public Interval div(Interval other) {
+        if (isBottom() || other.isBottom()) {
+            return BOTTOM;
+        }
+        return divNonZero(other.intersect(of(Integer.MIN_VALUE, -1)))
+                .join(divNonZero(other.intersect(of(1, Integer.MAX_VALUE))));
+    }
+
+    /**
+     * Divides this by divisor which does not contain zero. As the
+     * quotient is monotone in each operand when the sign of the divisor
+     * is fixed, the bounds are among the quotients of the bounds.
+     */
+    private Interval divNonZero(Interval divisor) {
+        if (divisor.isBottom()) {
+            return BOTTOM;
+        }
+        long q1 = (long) lower / divisor.lower, q2 = (long) lower / divisor.upper;
+        long q3 = (long) upper / divisor.lower, q4 = (long) upper / divisor.upper;
+        return ofLong(Math.min(Math.min(q1, q2), Math.min(q3, q4)),
+                Math.max(Math.max(q1, q2), Math.max(q3, q4)));
+    }
+
+    /**
+     * @return the remainder of dividing this by other. The magnitude of
+     * the remainder is less than the one of the divisor, and its sign is
+     * the same as the one of the dividend.
+     */
+    public Interval rem(Interval other) {
+        if (isBottom() || other.isBottom() ||
+                (other.lower == 0 && other.upper == 0)) {
+            return BOTTOM;
+        }
+        long max = Math.max(Math.abs((long) other.lower),
+                Math.abs((long) other.upper)) - 1;
+        long lo = lower >= 0 ? 0 : Math.max(lower, -max);
+        long hi = upper <= 0 ? 0 : Math.min(upper, max);
+        return ofLong(lo, hi);
+    }
+
+    public Interval neg() {
+        if (isBottom()) {
+            return BOTTOM;
+        }
+        return ofLong(-(long) upper, -(long) lower);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * lower + upper;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Interval other)) {
+            return false;
+        }
+        return lower == other.lower && upper == other.upper;
+    }
+
+    @Override
+    public String toString() {
+        if (isBottom()) {
+            return "BOTTOM";
+        }
+        return "[" + (lower == Integer.MIN_VALUE ? "-inf" : lower) + ", " +
+                (upper == Integer.MAX_VALUE ? "+inf" : upper) + "]";
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.interval;
+
+import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.*;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.language.type.PrimitiveType;
+
+/**
+ * Interval analysis of int variables (including the variables of
+ * the types that can hold int values, see
+ * {@link ConstantPropagation#canHoldInt(Var)}).
+ * <p>
+ * As the interval lattice has infinite ascending chains, the analysis
+ * always runs on the WTO solver, which widens the facts at loop heads,
+ * so that each bound of each variable changes at most once per loop
+ * after widening starts, and then narrows them to recover the bounds
+ * that are guarded by the loop conditions. The conditions of if and
+ * switch statements refine the intervals on the outgoing edges, which
+ * is the edge transfer only supported by the WTO solver.
+ */
+public class IntervalAnalysis extends
+        AbstractDataflowAnalysis<Stmt, IntervalFact> {
+
+    public static final String ID = "interval";
+
+    public IntervalAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public boolean isForward() {
+        return true;
+    }
+
+    @Override
+    public IntervalFact newBoundaryFact(CFG<Stmt> cfg) {
+        IntervalFact fact = new IntervalFact();
+        fact.setReachable();
+        cfg.getIR().getParams().forEach(param -> {
+            if (ConstantPropagation.canHoldInt(param)) {
+                fact.update(param, Interval.ofType((PrimitiveType) param.getType()));
+            }
+        });
+        return fact;
+    }
+
+    @Override
+    public IntervalFact newInitialFact() {
+        return new IntervalFact();
+    }
+
+    @Override
+    public void meetInto(IntervalFact fact, IntervalFact target) {
+        target.join(fact);
+    }
+
+    @Override
+    public boolean transferNode(Stmt stmt, IntervalFact in, IntervalFact out) {
+        if (in.isReachable() &&
+                stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                defStmt.getLValue() instanceof Var var &&
+                ConstantPropagation.canHoldInt(var)) {
+            IntervalFact result = in.copy();
+            result.update(var, evaluate(defStmt.getRValue(), in)
+                    .intersect(Interval.ofType((PrimitiveType) var.getType())));
+            return out.copyFrom(result);
+        }
+        return out.copyFrom(in);
+    }
+
+    @Override
+    public boolean needWidening() {
+        return true;
+    }
+
+    @Override
+    public void widen(Stmt head, IntervalFact oldFact, IntervalFact newFact) {
+        newFact.widen(oldFact);
+    }
+
+    @Override
+    public void narrow(Stmt head, IntervalFact oldFact, IntervalFact newFact) {
+        newFact.narrow(oldFact);
+    }
+
+    @Override
+    public boolean hasEdgeTransfer() {
+        return true;
+    }
+
+    @Override
+    public boolean needTransferEdge(Edge<Stmt> edge) {
+        return switch (edge.getKind()) {
+            case IF_TRUE, IF_FALSE, SWITCH_CASE -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public IntervalFact transferEdge(Edge<Stmt> edge, IntervalFact nodeFact) {
+        IntervalFact fact = nodeFact.copy();
+        if (!fact.isReachable()) {
+            return fact;
+        }
+        if (edge.getSource() instanceof If ifStmt) {
+            ConditionExp cond = ifStmt.getCondition();
+            ConditionExp.Op op = edge.getKind() == Edge.Kind.IF_TRUE ?
+                    cond.getOperator() : negate(cond.getOperator());
+            refine(fact, cond.getOperand1(), op, cond.getOperand2());
+        } else if (edge.getSource() instanceof SwitchStmt switchStmt) {
+            Var var = switchStmt.getVar();
+            if (ConstantPropagation.canHoldInt(var)) {
+                Interval value = fact.get(var)
+                        .intersect(Interval.ofConstant(edge.getCaseValue()));
+                if (value.isBottom()) {
+                    fact.setUnreachable();
+                } else {
+                    fact.update(var, value);
+                }
+            }
+        }
+        return fact;
+    }
+
+    private static ConditionExp.Op negate(ConditionExp.Op op) {
+        return switch (op) {
+            case EQ -> ConditionExp.Op.NE;
+            case NE -> ConditionExp.Op.EQ;
+            case LT -> ConditionExp.Op.GE;
+            case GE -> ConditionExp.Op.LT;
+            case GT -> ConditionExp.Op.LE;
+            case LE -> ConditionExp.Op.GT;
+        };
+    }
+
+    /**
+     * Refines the intervals of v1 and v2 in given fact by the condition
+     * (v1 op v2). If the condition cannot hold, the fact becomes unreachable.
+     */
+    private static void refine(IntervalFact fact, Var v1, ConditionExp.Op op, Var v2) {
+        if (!ConstantPropagation.canHoldInt(v1) ||
+                !ConstantPropagation.canHoldInt(v2)) {
+            return;
+        }
+        Interval i1 = fact.get(v1);
+        Interval i2 = fact.get(v2);
+        if (i1.isBottom() || i2.isBottom()) {
+            return;
+        }
+        int min = Integer.MIN_VALUE, max = Integer.MAX_VALUE;
+        long l1 = i1.getLower(), u1 = i1.getUpper();
+        long l2 = i2.getLower(), u2 = i2.getUpper();
+        Interval r1, r2;
+        switch (op) {
+            case LT -> {
+                r1 = i1.intersect(Interval.ofLong(min, u2 - 1));
+                r2 = i2.intersect(Interval.ofLong(l1 + 1, max));
+            }
+            case LE -> {
+                r1 = i1.intersect(Interval.ofLong(min, u2));
+                r2 = i2.intersect(Interval.ofLong(l1, max));
+            }
+            case GT -> {
+                r1 = i1.intersect(Interval.ofLong(l2 + 1, max));
+                r2 = i2.intersect(Interval.ofLong(min, u1 - 1));
+            }
+            case GE -> {
+                r1 = i1.intersect(Interval.ofLong(l2, max));
+                r2 = i2.intersect(Interval.ofLong(min, u1));
+            }
+            case EQ -> {
+                r1 = i1.intersect(i2);
+                r2 = r1;
+            }
+            default -> { // NE
+                r1 = excludeConstant(i1, i2);
+                r2 = excludeConstant(i2, i1);
+            }
+        }
+        if (r1.isBottom() || r2.isBottom()) {
+            fact.setUnreachable();
+        } else {
+            fact.update(v1, r1);
+            fact.update(v2, r2.intersect(fact.get(v2)));
+        }
+    }
+
+    /**
+     * @return the interval i without the value of c, if c is a constant
+     * at a bound of i, otherwise i itself.
+     */
+    private static Interval excludeConstant(Interval i, Interval c) {
+        if (c.isConstant()) {
+            int value = c.getLower();
+            if (i.isConstant() && i.getLower() == value) {
+                return Interval.getBottom();
+            } else if (i.getLower() == value) {
+                return Interval.of(value + 1, i.getUpper());
+            } else if (i.getUpper() == value) {
+                return Interval.of(i.getLower(), value - 1);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Evaluates the {@link Interval} of given expression.
+     *
+     * @param exp the expression to be evaluated
+     * @param in  IN fact of the statement
+     * @return the resulting {@link Interval}
+     */
+    public static Interval evaluate(Exp exp, IntervalFact in) {
+        if (exp instanceof Var var) {
+            return ConstantPropagation.canHoldInt(var) ?
+                    in.get(var) : Interval.getTop();
+        } else if (exp instanceof IntLiteral literal) {
+            return Interval.ofConstant(literal.getValue());
+        } else if (exp instanceof NegExp negExp) {
+            return evaluate(negExp.getValue(), in).neg();
+        } else if (exp instanceof ArrayLengthExp) {
+            return Interval.of(0, Integer.MAX_VALUE);
+        } else if (exp instanceof ComparisonExp) {
+            return Interval.of(-1, 1);
+        } else if (exp instanceof BinaryExp binaryExp) {
+            Interval i1 = evaluate(binaryExp.getOperand1(), in);
+            Interval i2 = evaluate(binaryExp.getOperand2(), in);
+            if (i1.isBottom() || i2.isBottom()) {
+                return Interval.getBottom();
+            }
+            if (binaryExp instanceof ArithmeticExp arithmeticExp) {
+                return switch (arithmeticExp.getOperator()) {
+                    case ADD -> i1.add(i2);
+                    case SUB -> i1.sub(i2);
+                    case MUL -> i1.mul(i2);
+                    case DIV -> i1.div(i2);
+                    case REM -> i1.rem(i2);
+                };
+            } else if (binaryExp instanceof ConditionExp conditionExp) {
+                return evaluateCondition(conditionExp.getOperator(), i1, i2);
+            } else if (i1.isConstant() && i2.isConstant()) {
+                // shift and bitwise expressions are precise only on constants
+                return evaluateConstants(binaryExp, i1.getLower(), i2.getLower());
+            } else if (binaryExp instanceof BitwiseExp bitwiseExp &&
+                    bitwiseExp.getOperator() == BitwiseExp.Op.AND) {
+                // x & y is in [0, y] if y is non-negative
+                int max = -1;
+                if (i1.getLower() >= 0) {
+                    max = i1.getUpper();
+                }
+                if (i2.getLower() >= 0) {
+                    max = max < 0 ? i2.getUpper() : Math.min(max, i2.getUpper());
+                }
+                return max < 0 ? Interval.getTop() : Interval.of(0, max);
+            }
+        }
+        // other expressions, e.g., method invocations and field loads
+        return Interval.getTop();
+    }
+
+    /**
+     * @return [1, 1] if the condition always holds, [0, 0] if it never
+     * holds, otherwise [0, 1].
+     */
+    public static Interval evaluateCondition(
+            ConditionExp.Op op, Interval i1, Interval i2) {
+        if (i1.isBottom() || i2.isBottom()) {
+            return Interval.getBottom();
+        }
+        int l1 = i1.getLower(), u1 = i1.getUpper();
+        int l2 = i2.getLower(), u2 = i2.getUpper();
+        boolean alwaysTrue, alwaysFalse;
+        switch (op) {
+            case LT -> {
+                alwaysTrue = u1 < l2;
+                alwaysFalse = l1 >= u2;
+            }
+            case LE -> {
+                alwaysTrue = u1 <= l2;
+                alwaysFalse = l1 > u2;
+            }
+            case GT -> {
+                alwaysTrue = l1 > u2;
+                alwaysFalse = u1 <= l2;
+            }
+            case GE -> {
+                alwaysTrue = l1 >= u2;
+                alwaysFalse = u1 < l2;
+            }
+            case EQ -> {
+                alwaysTrue = i1.isConstant() && i1.equals(i2);
+                alwaysFalse = i1.intersect(i2).isBottom();
+            }
+            default -> { // NE
+                alwaysTrue = i1.intersect(i2).isBottom();
+                alwaysFalse = i1.isConstant() && i1.equals(i2);
+            }
+        }
+        if (alwaysTrue) {
+            return Interval.ofConstant(1);
+        } else if (alwaysFalse) {
+            return Interval.ofConstant(0);
+        }
+        return Interval.of(0, 1);
+    }
+
+    private static Interval evaluateConstants(BinaryExp exp, int c1, int c2) {
+        if (exp instanceof ShiftExp shiftExp) {
+            return Interval.ofConstant(switch (shiftExp.getOperator()) {
+                case SHL -> c1 << c2;
+                case SHR -> c1 >> c2;
+                case USHR -> c1 >>> c2;
+            });
+        } else if (exp instanceof BitwiseExp bitwiseExp) {
+            return Interval.ofConstant(switch (bitwiseExp.getOperator()) {
+                case OR -> c1 | c2;
+                case AND -> c1 & c2;
+                case XOR -> c1 ^ c2;
+            });
+        }
+        return Interval.getTop();
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.interval;
+
+import pascal.taie.ir.exp.Var;
+import pascal.taie.util.AnalysisException;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+
+/**
+ * Represents data facts of interval analysis, which maps variables
+ * to their intervals.
+ * <p>
+ * Each interval is encoded as a long (see {@link Interval#encode()})
+ * and stored in an array indexed by {@link Var#getIndex()}, where 0
+ * represents the bottom interval, thus a fact can only hold the
+ * variables of one method.
+ * <p>
+ * Besides the intervals, a fact records whether the program point is
+ * reachable. The unreachable fact is the bottom of the lattice, i.e.,
+ * the identity of {@link #join(IntervalFact)}, which is used as the
+ * initial fact of the analysis and the fact of infeasible branches.
+ * <p>
+ * Each fact keeps a version stamp, which is increased whenever the fact
+ * changes, so that {@link #copyFrom(IntervalFact)} can tell in O(1) time
+ * that both facts are unchanged since the last copy between them.
+ */
+public class IntervalFact {
+
+    private static final Var[] EMPTY_VARS = {};
+
+    private static final long[] EMPTY_VALUES = {};
+
+    private boolean reachable;
+
+    /**
+     * The variables of the mappings, indexed by {@link Var#getIndex()}.
+     */
+    private Var[] vars;
+
+    /**
+     * The encoded intervals of the mappings, indexed by {@link Var#getIndex()}.
+     */
+    private long[] values;
+
+    /**
+     * Version stamp of this fact, which is increased whenever this fact
+     * (may have) changed.
+     */
+    private int version;
+
+    /**
+     * The fact of the last call of {@link #copyFrom(IntervalFact)},
+     * or null if copyFrom() has not been called.
+     */
+    @Nullable
+    private IntervalFact lastCopied;
+
+    /**
+     * Version of {@link #lastCopied} at the last call of copyFrom().
+     */
+    private int lastCopiedVersion;
+
+    /**
+     * Version of this fact right after the last call of copyFrom().
+     */
+    private int versionAfterCopy;
+
+    /**
+     * Creates an unreachable fact.
+     */
+    public IntervalFact() {
+        this(false, EMPTY_VARS, EMPTY_VALUES);
+    }
+
+    private IntervalFact(boolean reachable, Var[] vars, long[] values) {
+        this.reachable = reachable;
+        this.vars = vars;
+        this.values = values;
+    }
+
+    /**
+     * @return true if the program point of this fact is reachable,
+     * otherwise false.
+     */
+    public boolean isReachable() {
+        return reachable;
+    }
+
+    /**
+     * Marks this fact as reachable.
+     */
+    public void setReachable() {
+        if (!reachable) {
+            reachable = true;
+            ++version;
+        }
+    }
+
+    /**
+     * Makes this fact unreachable, which also removes all intervals.
+     */
+    public void setUnreachable() {
+        reachable = false;
+        Arrays.fill(vars, null);
+        Arrays.fill(values, 0L);
+        ++version;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            int newCapacity = Math.max(capacity, values.length * 2);
+            vars = Arrays.copyOf(vars, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    private long getEncoded(Var var) {
+        int i = var.getIndex();
+        return i < values.length && vars[i] == var ? values[i] : 0L;
+    }
+
+    /**
+     * @return the interval of given variable in this fact, or the bottom
+     * interval if the variable is absent in this fact.
+     */
+    public Interval get(Var var) {
+        return Interval.decode(getEncoded(var));
+    }
+
+    /**
+     * Updates the interval of given variable. Setting the bottom interval
+     * removes the variable from this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean update(Var var, Interval interval) {
+        long encoded = interval.encode();
+        int i = var.getIndex();
+        if (encoded == 0L) {
+            if (getEncoded(var) == 0L) {
+                return false;
+            }
+            vars[i] = null;
+            values[i] = 0L;
+            ++version;
+            return true;
+        }
+        ensureCapacity(i + 1);
+        if (vars[i] != null && vars[i] != var) {
+            throw new AnalysisException(var + " and " + vars[i] +
+                    " of different methods are in the same IntervalFact");
+        }
+        if (values[i] == encoded) {
+            return false;
+        }
+        vars[i] = var;
+        values[i] = encoded;
+        ++version;
+        return true;
+    }
+
+    /**
+     * Copies the content of given fact to this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean copyFrom(IntervalFact fact) {
+        if (fact == lastCopied && fact.version == lastCopiedVersion &&
+                version == versionAfterCopy) {
+            // neither fact has changed since the last copy
+            return false;
+        }
+        boolean changed = !equals(fact);
+        if (changed) {
+            reachable = fact.reachable;
+            vars = fact.vars.clone();
+            values = fact.values.clone();
+            ++version;
+        }
+        lastCopied = fact;
+        lastCopiedVersion = fact.version;
+        versionAfterCopy = version;
+        return changed;
+    }
+
+    /**
+     * Joins given fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean join(IntervalFact fact) {
+        if (!fact.reachable) {
+            return false;
+        }
+        if (!reachable) {
+            return copyFrom(fact);
+        }
+        ensureCapacity(fact.values.length);
+        boolean changed = false;
+        for (int i = 0; i < fact.values.length; ++i) {
+            long old = values[i];
+            long other = fact.values[i];
+            if (other != 0L && other != old) {
+                long value = old == 0L ? other : Interval.decode(old)
+                        .join(Interval.decode(other)).encode();
+                if (value != old) {
+                    vars[i] = fact.vars[i];
+                    values[i] = value;
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            ++version;
+        }
+        return changed;
+    }
+
+    /**
+     * Widens this fact with old fact, i.e., replaces each interval in
+     * this fact with the result of widening the old interval by it.
+     */
+    public void widen(IntervalFact old) {
+        apply(old, Interval::widen);
+    }
+
+    /**
+     * Narrows old fact by this fact, and stores the result in this fact.
+     */
+    public void narrow(IntervalFact old) {
+        apply(old, Interval::narrow);
+    }
+
+    /**
+     * Replaces each interval i of this fact with op(old(v), i), where v is
+     * the variable of i, which is done only if both facts are reachable.
+     */
+    private void apply(IntervalFact old, Operator op) {
+        if (!reachable || !old.reachable) {
+            return;
+        }
+        int length = Math.max(values.length, old.values.length);
+        ensureCapacity(length);
+        for (int i = 0; i < length; ++i) {
+            long oldValue = i < old.values.length ? old.values[i] : 0L;
+            if (oldValue != 0L || values[i] != 0L) {
+                long value = op.apply(Interval.decode(oldValue),
+                        Interval.decode(values[i])).encode();
+                if (value != values[i]) {
+                    if (vars[i] == null) {
+                        vars[i] = old.vars[i];
+                    }
+                    values[i] = value;
+                    if (value == 0L) {
+                        vars[i] = null;
+                    }
+                    ++version;
+                }
+            }
+        }
+    }
+
+    private interface Operator {
+        Interval apply(Interval old, Interval newer);
+    }
+
+    public IntervalFact copy() {
+        return new IntervalFact(reachable, vars.clone(), values.clone());
+    }
+
+    /**
+     * Performs given action for each variable and its interval in this fact.
+     */
+    public void forEach(BiConsumer<Var, Interval> action) {
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != 0L) {
+                action.accept(vars[i], Interval.decode(values[i]));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntervalFact that) || reachable != that.reachable) {
+            return false;
+        }
+        long[] shorter = values, longer = that.values;
+        if (shorter.length > longer.length) {
+            shorter = that.values;
+            longer = values;
+        }
+        for (int i = 0; i < shorter.length; ++i) {
+            if (shorter[i] != longer[i]) {
+                return false;
+            }
+        }
+        for (int i = shorter.length; i < longer.length; ++i) {
+            if (longer[i] != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = reachable ? 1 : 0;
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != 0L) {
+                hash += i ^ Long.hashCode(values[i]);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if (!reachable) {
+            return "UNREACHABLE";
+        }
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach((var, interval) -> joiner.add(var + "=" + interval));
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * On-disk cache of the results of an intraprocedural analysis, which
+ * allows a run to skip the methods whose bodies have not changed since
+ * the previous run.
+ * <p>
+ * The cache is enabled by option {@value #CACHE_DIR_OPTION} of the
+ * analysis. The result of each method is stored in its own file under
+ * {@code <cache-dir>/<analysis-id>/}, together with a key consisting of:
+ * <ul>
+ *     <li>the version of the format of the cached results;
+ *     <li>the hash of the method body, i.e., its variables with their
+ *     types, its statements and the edges of its CFG;
+ *     <li>the options of the analysis;
+ *     <li>a key of the dependencies given by the analysis, typically the
+ *     digests of the cached results of other analyses it uses
+ *     (see {@link #getDigest(IR, String)}).
+ * </ul>
+ * A cached result is used only if its key equals the current one.
+ * The results are encoded as text by the analyses, based on the indexes
+ * of statements and variables, which are stable for the same key.
+ * <p>
+ * The cache is best-effort: I/O errors and the cached results that fail
+ * to decode (e.g., corrupted files) are logged, and the results are
+ * computed as usual. The cache files of different methods are distinct,
+ * thus the analysis of different methods may use the cache concurrently.
+ */
+public class ResultCache {
+
+    private static final Logger logger = LogManager.getLogger(ResultCache.class);
+
+    /**
+     * Name of the analysis option that specifies the cache directory.
+     */
+    public static final String CACHE_DIR_OPTION = "cache-dir";
+
+    /**
+     * Key for storing the hash of method body in {@link IR}.
+     */
+    private static final String HASH_KEY = "cache-hash";
+
+    /**
+     * Prefix of the keys for storing the digests of results in {@link IR}.
+     */
+    private static final String DIGEST_KEY_PREFIX = "cache-digest:";
+
+    /**
+     * Version of the format of the cache files and the encodings of the
+     * results, which is a part of the keys, thus the results cached by
+     * other versions are never used. It must be increased whenever the
+     * format or the encoding of any analysis changes.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String ENTRY = "entry";
+
+    private static final String EXIT = "exit";
+
+    private final Path dir;
+
+    private final String id;
+
+    private final String options;
+
+    private ResultCache(Path dir, String id, String options) {
+        this.dir = dir;
+        this.id = id;
+        this.options = options;
+    }
+
+    /**
+     * @return the result cache of given analysis, or null if the analysis
+     * does not specify option {@value #CACHE_DIR_OPTION}.
+     */
+    @Nullable
+    public static ResultCache of(MethodAnalysis analysis) {
+        String cacheDir = analysis.getOptions().getString(CACHE_DIR_OPTION);
+        if (cacheDir == null) {
+            return null;
+        }
+        return new ResultCache(Path.of(cacheDir, analysis.getId()),
+                analysis.getId(), analysis.getOptions().toString());
+    }
+
+    /**
+     * Loads the cached result of given IR.
+     *
+     * @param dependencyKey key of the inputs of the analysis other than
+     *                      the IR and the options, or null if some inputs
+     *                      are unknown, in which case nothing is loaded
+     * @return the encoded result, or null if there is no valid cached result.
+     */
+    @Nullable
+    public List<String> load(IR ir, @Nullable String dependencyKey) {
+        if (ir.getMethod() == null || dependencyKey == null) {
+            return null;
+        }
+        Path file = getFile(ir);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            String key = getKey(ir, dependencyKey);
+            if (lines.isEmpty() || !lines.get(0).equals(key)) {
+                return null;
+            }
+            List<String> payload = lines.subList(1, lines.size());
+            recordDigest(ir, key, payload);
+            return payload;
+        } catch (IOException e) {
+            logger.warn("Failed to read cached result {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Loads and decodes the cached result of given IR. If the cached
+     * result fails to decode, it is treated as absent.
+     *
+     * @param dependencyKey the same as {@link #load(IR, String)}
+     * @param decoder       decodes the result encoded by the analysis,
+     *                      and may throw any {@link RuntimeException}
+     *                      on malformed input
+     * @return the decoded result, or null if there is no valid cached result.
+     */
+    @Nullable
+    public <R> R load(IR ir, @Nullable String dependencyKey,
+                      Function<List<String>, R> decoder) {
+        List<String> payload = load(ir, dependencyKey);
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return decoder.apply(payload);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to decode cached result {}: {}",
+                    getFile(ir), e.toString());
+            // the result will be computed and stored again
+            ir.clearResult(DIGEST_KEY_PREFIX + id);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the encoded result of given IR.
+     *
+     * @param dependencyKey the same as {@link #load(IR, String)}. If it is
+     *                      null, nothing is stored.
+     */
+    public void store(IR ir, @Nullable String dependencyKey, List<String> payload) {
+        if (ir.getMethod() == null || dependencyKey == null) {
+            return;
+        }
+        Path file = getFile(ir);
+        String key = getKey(ir, dependencyKey);
+        List<String> lines = new ArrayList<>(payload.size() + 1);
+        lines.add(key);
+        lines.addAll(payload);
+        try {
+            Files.createDirectories(dir);
+            // write to a temporary file first, so that a concurrent or
+            // interrupted run never sees a partially written file
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            recordDigest(ir, key, payload);
+        } catch (IOException e) {
+            logger.warn("Failed to write cached result {}: {}", file, e.toString());
+        }
+    }
+
+    private Path getFile(IR ir) {
+        return dir.resolve(sha256(ir.getMethod().toString()) + ".txt");
+    }
+
+    private String getKey(IR ir, String dependencyKey) {
+        return "v" + FORMAT_VERSION + " " + getHash(ir) + " " +
+                sha256(options) + " " + sha256(dependencyKey);
+    }
+
+    private void recordDigest(IR ir, String key, List<String> payload) {
+        ir.storeResult(DIGEST_KEY_PREFIX + id,
+                sha256(key + "\n" + String.join("\n", payload)));
+    }
+
+    /**
+     * @return the digest of the result of analysis id on given IR, if the
+     * result has been loaded from or stored to the cache in this run,
+     * otherwise null.
+     */
+    @Nullable
+    public static String getDigest(IR ir, String id) {
+        return ir.getResult(DIGEST_KEY_PREFIX + id, (String) null);
+    }
+
+    /**
+     * @return the hash of the body of the method of given IR. The hash is
+     * computed once per IR, as multiple analyses may cache their results.
+     */
+    public static String getHash(IR ir) {
+        String hash = ir.getResult(HASH_KEY, (String) null);
+        if (hash == null) {
+            hash = computeHash(ir);
+            ir.storeResult(HASH_KEY, hash);
+        }
+        return hash;
+    }
+
+    private static String computeHash(IR ir) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(ir.getMethod()).append('\n');
+        for (Var var : ir.getVars()) {
+            builder.append(var.getName()).append(':')
+                    .append(var.getType()).append('\n');
+        }
+        ir.getParams().forEach(p -> builder.append("param ").append(p).append('\n'));
+        ir.getReturnVars().forEach(v -> builder.append("ret ").append(v).append('\n'));
+        // statements are identified by their indexes and contents,
+        // excluding line numbers, which do not affect the results
+        for (Stmt stmt : ir) {
+            builder.append(stmt.getIndex()).append(' ')
+                    .append(stmt.getClass().getSimpleName()).append(' ')
+                    .append(stmt).append('\n');
+        }
+        ir.getExceptionEntries().forEach(e -> builder.append(e).append('\n'));
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID, (CFG<Stmt>) null);
+        if (cfg != null) {
+            // the CFG depends on the options of CFG builder,
+            // e.g., how exceptions are handled
+            for (Stmt node : cfg) {
+                cfg.getOutEdgesOf(node)
+                        .stream()
+                        .map(edge -> toString(cfg, edge))
+                        .sorted()
+                        .forEach(edge -> builder.append(edge).append('\n'));
+            }
+        }
+        return sha256(builder.toString());
+    }
+
+    private static String toString(CFG<Stmt> cfg, Edge<Stmt> edge) {
+        String s = getNodeName(cfg, edge.getSource()) + " -" + edge.getKind() +
+                "-> " + getNodeName(cfg, edge.getTarget());
+        return edge.isSwitchCase() ? s + " " + edge.getCaseValue() : s;
+    }
+
+    private static String sha256(String s) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(
+                    digest.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String getNodeName(CFG<Stmt> cfg, Stmt node) {
+        if (cfg.isEntry(node)) {
+            return ENTRY;
+        } else if (cfg.isExit(node)) {
+            return EXIT;
+        } else {
+            return Integer.toString(node.getIndex());
+        }
+    }
+
+    /**
+     * Encodes a data-flow result on given CFG, one line per node, which
+     * consists of the node and its encoded in and out facts separated
+     * by tabs. Thus, the encoded facts must not contain tabs or newlines.
+     */
+    public static <Fact> List<String> encodeResult(
+            CFG<Stmt> cfg, DataflowResult<Stmt, Fact> result,
+            Function<Fact, String> encoder) {
+        List<String> lines = new ArrayList<>(cfg.getNumberOfNodes());
+        for (Stmt node : cfg) {
+            lines.add(getNodeName(cfg, node) + '\t' +
+                    encodeFact(result.getInFact(node), encoder) + '\t' +
+                    encodeFact(result.getOutFact(node), encoder));
+        }
+        return lines;
+    }
+
+    /**
+     * Decodes the result encoded by {@link #encodeResult}.
+     */
+    public static <Fact> DataflowResult<Stmt, Fact> decodeResult(
+            CFG<Stmt> cfg, List<String> lines, Function<String, Fact> decoder) {
+        DataflowResult<Stmt, Fact> result = new DataflowResult<>();
+        for (String line : lines) {
+            String[] parts = line.split("\t", -1);
+            Stmt node = switch (parts[0]) {
+                case ENTRY -> cfg.getEntry();
+                case EXIT -> cfg.getExit();
+                default -> cfg.getIR().getStmt(Integer.parseInt(parts[0]));
+            };
+            result.setInFact(node, decodeFact(parts[1], decoder));
+            result.setOutFact(node, decodeFact(parts[2], decoder));
+        }
+        return result;
+    }
+
+    /**
+     * Null facts, e.g., the in fact of the entry in some analyses,
+     * are encoded as "-".
+     */
+    private static <Fact> String encodeFact(@Nullable Fact fact,
+                                            Function<Fact, String> encoder) {
+        return fact == null ? "-" : "+" + encoder.apply(fact);
+    }
+
+    @Nullable
+    private static <Fact> Fact decodeFact(String s, Function<String, Fact> decoder) {
+        return s.equals("-") ? null : decoder.apply(s.substring(1));
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.CollectionUtils;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Set-like data-flow facts whose elements have dense indexes, e.g.,
+ * the variables of a method. The elements are represented by bits
+ * of {@code long} words, so that union, intersection and copy are
+ * performed word by word.
+ * <p>
+ * Operations between two bit-set facts are meaningful only if they
+ * index the same universe of elements. Operations with other kinds
+ * of {@link SetFact} (in either direction) are supported, but slower.
+ * A bit-set fact does not use the backing set of {@link SetFact}.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E extends Indexable> extends SetFact<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    /**
+     * Maps index to the corresponding element.
+     */
+    private final IntFunction<E> elements;
+
+    private long[] words;
+
+    /**
+     * Creates an empty bit-set fact.
+     *
+     * @param elements maps index to the corresponding element
+     * @param capacity number of elements in the universe, e.g., the number
+     *                 of variables in a method. The fact still grows if an
+     *                 element with a greater index is added.
+     */
+    public BitSetFact(IntFunction<E> elements, int capacity) {
+        super((Void) null);
+        this.elements = elements;
+        this.words = capacity > 0 ?
+                new long[wordIndex(capacity - 1) + 1] : EMPTY_WORDS;
+    }
+
+    private BitSetFact(BitSetFact<E> other) {
+        super((Void) null);
+        this.elements = other.elements;
+        this.words = other.words.clone();
+    }
+
+    private static int wordIndex(int index) {
+        return index >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            words = Arrays.copyOf(words, wordsRequired);
+        }
+    }
+
+    @Override
+    public boolean contains(E e) {
+        int index = e.getIndex();
+        int wordIndex = wordIndex(index);
+        return wordIndex < words.length &&
+                (words[wordIndex] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = e.getIndex();
+        int wordIndex = wordIndex(index);
+        ensureCapacity(wordIndex + 1);
+        long old = words[wordIndex];
+        words[wordIndex] = old | (1L << index);
+        return words[wordIndex] != old;
+    }
+
+    @Override
+    public boolean remove(E e) {
+        int index = e.getIndex();
+        int wordIndex = wordIndex(index);
+        if (wordIndex >= words.length) {
+            return false;
+        }
+        long old = words[wordIndex];
+        words[wordIndex] = old & ~(1L << index);
+        return words[wordIndex] != old;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<E> filter) {
+        boolean changed = false;
+        for (int i = 0; i < words.length; ++i) {
+            long word = words[i];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (filter.test(elements.apply((i << ADDRESS_BITS_PER_WORD) + bit))) {
+                    words[i] &= ~(1L << bit);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            long[] thatWords = that.words;
+            ensureCapacity(thatWords.length);
+            long changed = 0;
+            for (int i = 0; i < thatWords.length; ++i) {
+                long old = words[i];
+                words[i] = old | thatWords[i];
+                changed |= words[i] ^ old;
+            }
+            return changed != 0;
+        }
+        boolean changed = false;
+        for (E e : other.stream().toList()) {
+            changed |= add(e);
+        }
+        return changed;
+    }
+
+    @Override
+    public BitSetFact<E> unionWith(SetFact<E> other) {
+        BitSetFact<E> result = copy();
+        result.union(other);
+        return result;
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            long[] thatWords = that.words;
+            long changed = 0;
+            for (int i = 0; i < words.length; ++i) {
+                long old = words[i];
+                words[i] = i < thatWords.length ? old & thatWords[i] : 0;
+                changed |= words[i] ^ old;
+            }
+            return changed != 0;
+        }
+        return removeIf(e -> !other.contains(e));
+    }
+
+    @Override
+    public BitSetFact<E> intersectWith(SetFact<E> other) {
+        BitSetFact<E> result = copy();
+        result.intersect(other);
+        return result;
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            if (words.length == that.words.length) {
+                System.arraycopy(that.words, 0, words, 0, words.length);
+            } else {
+                words = that.words.clone();
+            }
+        } else {
+            clear();
+            union(other);
+        }
+    }
+
+    /**
+     * Sets this fact to gen U (in - kill), word by word. This is the
+     * transfer function of bit-vector data-flow analyses.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean setGenKill(BitSetFact<E> gen, BitSetFact<E> in, BitSetFact<E> kill) {
+        ensureCapacity(Math.max(gen.words.length, in.words.length));
+        long changed = 0;
+        for (int i = 0; i < words.length; ++i) {
+            long word = (i < in.words.length ? in.words[i] : 0)
+                    & ~(i < kill.words.length ? kill.words[i] : 0)
+                    | (i < gen.words.length ? gen.words[i] : 0);
+            changed |= word ^ words[i];
+            words[i] = word;
+        }
+        return changed != 0;
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(this);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return stream of the indexes of the elements in this fact, in ascending order.
+     */
+    public IntStream indexes() {
+        return IntStream.range(0, words.length)
+                .flatMap(i -> {
+                    long word = words[i];
+                    IntStream.Builder builder = IntStream.builder();
+                    while (word != 0) {
+                        builder.add((i << ADDRESS_BITS_PER_WORD) +
+                                Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                    return builder.build();
+                });
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return indexes().mapToObj(elements);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof BitSetFact<?> that) {
+            long[] longer = words.length >= that.words.length ? words : that.words;
+            long[] shorter = longer == words ? that.words : words;
+            for (int i = 0; i < longer.length; ++i) {
+                if (longer[i] != (i < shorter.length ? shorter[i] : 0)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (!(o instanceof SetFact<?> that)) {
+            return false;
+        }
+        // compare with other kinds of set facts by elements
+        return that.equals(new SetFact<>(stream().toList()));
+    }
+
+    @Override
+    public int hashCode() {
+        // consistent with the hash code of SetFact, i.e., sum of
+        // the hash codes of the elements
+        return stream().mapToInt(Object::hashCode).sum();
+    }
+
+    @Override
+    public String toString() {
+        return CollectionUtils.toString(stream().toList());
+    }
+}
@@ -22,8 +22,10 @@
 
 package pascal.taie.analysis.dataflow.fact;
 
+import javax.annotation.Nullable;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * An object which manages the data-flow facts associated with nodes.
@@ -37,12 +39,45 @@ public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
 
     private final Map<Node, Fact> outFacts = new LinkedHashMap<>();
 
+    /**
+     * Creates the facts which are absent in this result when they are
+     * queried, or null if absent facts are returned as null.
+     */
+    @Nullable
+    private Function<Node, Fact> factFactory;
+
+    /**
+     * Lets the in and out facts which are absent in this result be created
+     * by given factory when they are queried for the first time, so that
+     * each node gets a fact of its own, and clients may modify the fact
+     * of a node without affecting the facts of other nodes.
+     *
+     * @param factFactory returns a new fact for given node,
+     *                    or null if the node has no fact
+     */
+    public void setFactFactory(Function<Node, Fact> factFactory) {
+        this.factFactory = factFactory;
+    }
+
+    /**
+     * @return a new fact for given node whose fact is absent,
+     * or null if the node has no fact.
+     */
+    @Nullable
+    protected Fact newFact(Node node) {
+        return factFactory != null ? factFactory.apply(node) : null;
+    }
+
     /**
      * @return the flowing-in fact of given node.
      */
     @Override
     public Fact getInFact(Node node) {
-        return inFacts.get(node);
+        Fact fact = inFacts.get(node);
+        if (fact == null && (fact = newFact(node)) != null) {
+            inFacts.put(node, fact);
+        }
+        return fact;
     }
 
     /**
@@ -57,7 +92,11 @@ public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
      */
     @Override
     public Fact getOutFact(Node node) {
-        return outFacts.get(node);
+        Fact fact = outFacts.get(node);
+        if (fact == null && (fact = newFact(node)) != null) {
+            outFacts.put(node, fact);
+        }
+        return fact;
     }
 
     /**
@@ -22,11 +22,11 @@
 
 package pascal.taie.analysis.dataflow.fact;
 
-import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.PersistentMap;
 
+import javax.annotation.Nullable;
 import java.util.Comparator;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
@@ -34,6 +34,12 @@ import java.util.stream.Stream;
 
 /**
  * Represents map-like data-flow facts.
+ * <p>
+ * The mappings are kept in a {@link PersistentMap}, so that copying a fact
+ * is O(1) and the copy shares structure with the original fact until
+ * either of them is updated. As persistent maps are immutable, the map
+ * of a fact also serves as the version stamp of the fact, which changes
+ * whenever the fact changes.
  *
  * @param <K> type of keys
  * @param <V> type of values
@@ -43,7 +49,21 @@ public class MapFact<K, V> {
     /**
      * The map holding the mappings of this MapFact.
      */
-    protected final Map<K, V> map;
+    protected PersistentMap<K, V> map;
+
+    /**
+     * Map of the fact copied by the last call of {@link #copyFrom(MapFact)}
+     * that is not skipped, or null if there is no such call.
+     */
+    @Nullable
+    private PersistentMap<K, V> lastCopiedMap;
+
+    /**
+     * Map of this fact right after the last call of
+     * {@link #copyFrom(MapFact)} that is not skipped.
+     */
+    @Nullable
+    private PersistentMap<K, V> mapAfterCopy;
 
     /**
      * Constructs a new MapFact with the same mappings as specified Map.
@@ -51,7 +71,14 @@ public class MapFact<K, V> {
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this(PersistentMap.of(map));
+    }
+
+    /**
+     * Constructs a new MapFact which shares given persistent map.
+     */
+    protected MapFact(PersistentMap<K, V> map) {
+        this.map = map;
     }
 
     /**
@@ -68,7 +95,9 @@ public class MapFact<K, V> {
      * @return if the update changes this fact.
      */
     public boolean update(K key, V value) {
-        return !Objects.equals(map.put(key, value), value);
+        PersistentMap<K, V> oldMap = map;
+        map = map.put(key, value);
+        return map != oldMap;
     }
 
     /**
@@ -78,7 +107,9 @@ public class MapFact<K, V> {
      * or null if there was no mapping for key.
      */
     public V remove(K key) {
-        return map.remove(key);
+        V oldValue = map.get(key);
+        map = map.remove(key);
+        return oldValue;
     }
 
     /**
@@ -87,15 +118,22 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
-        boolean changed = false;
-        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
-            changed |= update(entry.getKey(), entry.getValue());
+        if (fact.map == lastCopiedMap && map == mapAfterCopy) {
+            // neither fact has changed since the last copy, which is
+            // common when a node is re-transferred with unchanged in fact
+            return false;
         }
-        return changed;
+        // sub-tries shared by the two facts are skipped
+        PersistentMap<K, V> oldMap = map;
+        map = map.putAll(fact.map);
+        lastCopiedMap = fact.map;
+        mapAfterCopy = map;
+        return map != oldMap;
     }
 
     /**
-     * Creates and returns a copy of this fact.
+     * Creates and returns a copy of this fact. This takes O(1) time
+     * as the copy shares the mappings with this fact.
      */
     public MapFact<K, V> copy() {
         return new MapFact<>(this.map);
@@ -105,7 +143,7 @@ public class MapFact<K, V> {
      * Clears all content in this fact.
      */
     public void clear() {
-        map.clear();
+        map = PersistentMap.empty();
     }
 
     /**
@@ -119,7 +157,7 @@ public class MapFact<K, V> {
      * @return all entries (key-value mappings) in this fact.
      */
     public Stream<Map.Entry<K, V>> entries() {
-        return map.entrySet().stream();
+        return map.entries();
     }
 
     /**
@@ -154,8 +192,7 @@ public class MapFact<K, V> {
         // Sort key-value pairs by key's string representation, so that the
         // fact representation is stable across executions. This is useful
         // for comparing expected results and the ones given by the analysis.
-        return "{" + map.entrySet()
-                .stream()
+        return "{" + map.entries()
                 .sorted(Comparator.comparing(e -> e.getKey().toString()))
                 .map(e -> e.getKey() + "=" + e.getValue())
                 .collect(Collectors.joining(", ")) + "}";
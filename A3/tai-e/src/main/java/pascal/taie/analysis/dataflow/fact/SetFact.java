@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.fact;
 import pascal.taie.util.collection.CollectionUtils;
 import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
@@ -38,6 +39,11 @@ import java.util.stream.Stream;
  */
 public class SetFact<E> {
 
+    /**
+     * The elements of this fact, or null if this fact is of a subclass
+     * that stores the elements by itself, e.g., {@link BitSetFact}.
+     */
+    @Nullable
     protected final Set<E> set;
 
     public SetFact(Collection<E> c) {
@@ -48,6 +54,14 @@ public class SetFact<E> {
         this(Collections.emptySet());
     }
 
+    /**
+     * Constructor for subclasses that store the elements by themselves,
+     * which must override all operations of this class.
+     */
+    protected SetFact(Void noSet) {
+        set = null;
+    }
+
     /**
      * @return true if this set contains the specified element, otherwise false.
      */
@@ -89,7 +103,14 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean union(SetFact<E> other) {
-        return set.addAll(other.set);
+        if (other.set != null) {
+            return set.addAll(other.set);
+        }
+        boolean changed = false;
+        for (E e : other.stream().toList()) {
+            changed |= set.add(e);
+        }
+        return changed;
     }
 
     /**
@@ -107,7 +128,8 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean intersect(SetFact<E> other) {
-        return set.retainAll(other.set);
+        return other.set != null ?
+                set.retainAll(other.set) : set.removeIf(e -> !other.contains(e));
     }
 
     /**
@@ -161,6 +183,10 @@ public class SetFact<E> {
         if (!(o instanceof SetFact<?> that)) {
             return false;
         }
+        if (that.set == null) {
+            // let the subclass compare the elements
+            return that.equals(this);
+        }
         return set.equals(that.set);
     }
 
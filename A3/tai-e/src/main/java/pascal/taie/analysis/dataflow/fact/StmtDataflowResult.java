@@ -0,0 +1,122 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+/**
+ * {@link DataflowResult} for CFGs of statements, which stores the facts
+ * in arrays indexed by {@link Stmt#getIndex()}, instead of hash maps.
+ * The entry and exit nodes of the CFG, which are not in the IR, are
+ * stored in the two slots after the statements. A statement is looked
+ * up only if it is the statement of the IR at its index, so statements
+ * of other IRs are not mistaken for the ones of this CFG.
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public class StmtDataflowResult<Fact> extends DataflowResult<Stmt, Fact> {
+
+    private final IR ir;
+
+    private final Stmt entry;
+
+    private final Stmt exit;
+
+    /**
+     * Number of statements in the IR.
+     */
+    private final int stmtCount;
+
+    private final Object[] inFacts;
+
+    private final Object[] outFacts;
+
+    public StmtDataflowResult(CFG<Stmt> cfg) {
+        ir = cfg.getIR();
+        entry = cfg.getEntry();
+        exit = cfg.getExit();
+        stmtCount = ir.getStmts().size();
+        inFacts = new Object[stmtCount + 2];
+        outFacts = new Object[stmtCount + 2];
+    }
+
+    /**
+     * @return the slot of given node, or -1 if the node is not in the CFG.
+     */
+    private int getSlot(Stmt node) {
+        if (node == entry) {
+            return stmtCount;
+        } else if (node == exit) {
+            return stmtCount + 1;
+        }
+        int index = node.getIndex();
+        return 0 <= index && index < stmtCount && ir.getStmt(index) == node ?
+                index : -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getInFact(Stmt node) {
+        int slot = getSlot(node);
+        if (slot < 0) {
+            return null;
+        }
+        if (inFacts[slot] == null) {
+            inFacts[slot] = newFact(node);
+        }
+        return (Fact) inFacts[slot];
+    }
+
+    @Override
+    public void setInFact(Stmt node, Fact fact) {
+        inFacts[checkSlot(node)] = fact;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getOutFact(Stmt node) {
+        int slot = getSlot(node);
+        if (slot < 0) {
+            return null;
+        }
+        if (outFacts[slot] == null) {
+            outFacts[slot] = newFact(node);
+        }
+        return (Fact) outFacts[slot];
+    }
+
+    @Override
+    public void setOutFact(Stmt node, Fact fact) {
+        outFacts[checkSlot(node)] = fact;
+    }
+
+    private int checkSlot(Stmt node) {
+        int slot = getSlot(node);
+        if (slot < 0) {
+            throw new IllegalArgumentException(node + " is not in the CFG");
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Work-list solver that iterates over the basic blocks of the CFG.
+ * Facts are stored only at the boundaries of blocks, i.e., the in fact
+ * of the first node and the out fact of the last node of each block.
+ * The facts of the other nodes are recomputed on demand, when they are
+ * queried from the result, thus the transfer function of the analysis
+ * must compute the out (in) fact of a node solely from its in (out) fact.
+ */
+class BlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    BlockSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        return new BlockResult(new BlockGraph<>(cfg));
+    }
+
+    @Override
+    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockResult blockResult = (BlockResult) result;
+        for (BasicBlock<Node> block : blockResult.blocks.getBlocks()) {
+            if (cfg.isEntry(block.getFirst())) {
+                blockResult.outFacts[block.getIndex()] = analysis.newBoundaryFact(cfg);
+            } else {
+                blockResult.inFacts[block.getIndex()] = analysis.newInitialFact(cfg);
+                blockResult.outFacts[block.getIndex()] = analysis.newInitialFact(cfg);
+            }
+        }
+    }
+
+    @Override
+    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockResult blockResult = (BlockResult) result;
+        for (BasicBlock<Node> block : blockResult.blocks.getBlocks()) {
+            if (cfg.isExit(block.getFirst())) {
+                blockResult.inFacts[block.getIndex()] = analysis.newBoundaryFact(cfg);
+            } else {
+                blockResult.inFacts[block.getIndex()] = analysis.newInitialFact(cfg);
+                blockResult.outFacts[block.getIndex()] = analysis.newInitialFact(cfg);
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockResult blockResult = (BlockResult) result;
+        BlockGraph<Node> blocks = blockResult.blocks;
+        PriorityWorkList<BasicBlock<Node>> workList =
+                new PriorityWorkList<>(blocks, blocks.getEntry(), true);
+        FactVersions<BasicBlock<Node>> versions = new FactVersions<>(
+                blocks.getNumberOfNodes(), BasicBlock::getIndex);
+        workList.addAll();
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            if (blocks.isEntry(block) || blocks.isExit(block)) continue;
+            int index = block.getIndex();
+            Fact in = blockResult.inFacts[index];
+            Set<BasicBlock<Node>> preds = blocks.getPredsOf(block);
+            int i = 0;
+            for (BasicBlock<Node> pred : preds) {
+                if (versions.needMeet(pred, block, i++, preds.size())) {
+                    analysis.meetInto(blockResult.outFacts[pred.getIndex()], in);
+                }
+            }
+            if (transferBlock(cfg, block, in, blockResult.outFacts[index], true)) {
+                versions.update(block);
+                blocks.getSuccsOf(block).forEach(workList::add);
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockResult blockResult = (BlockResult) result;
+        BlockGraph<Node> blocks = blockResult.blocks;
+        PriorityWorkList<BasicBlock<Node>> workList =
+                new PriorityWorkList<>(blocks, blocks.getEntry(), false);
+        FactVersions<BasicBlock<Node>> versions = new FactVersions<>(
+                blocks.getNumberOfNodes(), BasicBlock::getIndex);
+        workList.addAll();
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            if (blocks.isEntry(block) || blocks.isExit(block)) continue;
+            int index = block.getIndex();
+            Fact out = blockResult.outFacts[index];
+            Set<BasicBlock<Node>> succs = blocks.getSuccsOf(block);
+            int i = 0;
+            for (BasicBlock<Node> succ : succs) {
+                if (versions.needMeet(succ, block, i++, succs.size())) {
+                    analysis.meetInto(blockResult.inFacts[succ.getIndex()], out);
+                }
+            }
+            if (transferBlock(cfg, block, blockResult.inFacts[index], out, false)) {
+                versions.update(block);
+                blocks.getPredsOf(block).forEach(workList::add);
+            }
+        }
+    }
+
+    /**
+     * Transfers the facts through the nodes of block. The intermediate
+     * facts are not stored.
+     *
+     * @return true if the out (in) fact of the block changed in forward
+     * (backward) analysis, otherwise false.
+     */
+    private boolean transferBlock(CFG<Node> cfg, BasicBlock<Node> block,
+                                  Fact in, Fact out, boolean isForward) {
+        List<Node> nodes = block.getNodes();
+        int size = nodes.size();
+        if (isForward) {
+            Fact fact = in;
+            for (int i = 0; i < size - 1; ++i) {
+                Fact next = analysis.newInitialFact(cfg);
+                analysis.transferNode(nodes.get(i), fact, next);
+                fact = next;
+            }
+            return analysis.transferNode(nodes.get(size - 1), fact, out);
+        } else {
+            Fact fact = out;
+            for (int i = size - 1; i > 0; --i) {
+                Fact prev = analysis.newInitialFact(cfg);
+                analysis.transferNode(nodes.get(i), prev, fact);
+                fact = prev;
+            }
+            return analysis.transferNode(nodes.get(0), in, fact);
+        }
+    }
+
+    /**
+     * Result of block solver. The facts of the nodes inside a block are
+     * recomputed when they are queried, and the facts of the most
+     * recently queried block are cached, as clients typically query
+     * the nodes of a block one after another. The cache is replaced as
+     * a whole, so that the result can be queried by multiple threads.
+     */
+    private class BlockResult extends DataflowResult<Node, Fact> {
+
+        private final BlockGraph<Node> blocks;
+
+        /**
+         * In (out) facts of the first (last) nodes of blocks,
+         * indexed by block.
+         */
+        private final Fact[] inFacts;
+
+        private final Fact[] outFacts;
+
+        /**
+         * The most recently expanded block.
+         */
+        private Expansion<Node, Fact> cache;
+
+        @SuppressWarnings("unchecked")
+        private BlockResult(BlockGraph<Node> blocks) {
+            this.blocks = blocks;
+            inFacts = (Fact[]) new Object[blocks.getNumberOfNodes()];
+            outFacts = (Fact[]) new Object[blocks.getNumberOfNodes()];
+        }
+
+        @Override
+        public Fact getInFact(Node node) {
+            BasicBlock<Node> block = blocks.getBlockOf(node);
+            if (block == null) {
+                return null;
+            }
+            if (node == block.getFirst()) {
+                return inFacts[block.getIndex()];
+            }
+            return expand(block).inFacts()[blocks.getPositionOf(node)];
+        }
+
+        @Override
+        public Fact getOutFact(Node node) {
+            BasicBlock<Node> block = blocks.getBlockOf(node);
+            if (block == null) {
+                return null;
+            }
+            if (node == block.getLast()) {
+                return outFacts[block.getIndex()];
+            }
+            return expand(block).outFacts()[blocks.getPositionOf(node)];
+        }
+
+        @Override
+        public void setInFact(Node node, Fact fact) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setOutFact(Node node, Fact fact) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Computes the facts of all nodes in given block.
+         */
+        @SuppressWarnings("unchecked")
+        private Expansion<Node, Fact> expand(BasicBlock<Node> block) {
+            Expansion<Node, Fact> expansion = cache;
+            if (expansion != null && expansion.block() == block) {
+                return expansion;
+            }
+            CFG<Node> cfg = blocks.getCFG();
+            List<Node> nodes = block.getNodes();
+            int size = nodes.size();
+            Fact[] in = (Fact[]) new Object[size];
+            Fact[] out = (Fact[]) new Object[size];
+            in[0] = inFacts[block.getIndex()];
+            out[size - 1] = outFacts[block.getIndex()];
+            if (analysis.isForward()) {
+                for (int i = 0; i < size - 1; ++i) {
+                    out[i] = analysis.newInitialFact(cfg);
+                    analysis.transferNode(nodes.get(i), in[i], out[i]);
+                    in[i + 1] = out[i];
+                }
+            } else {
+                for (int i = size - 1; i > 0; --i) {
+                    in[i] = analysis.newInitialFact(cfg);
+                    analysis.transferNode(nodes.get(i), in[i], out[i]);
+                    out[i - 1] = in[i];
+                }
+            }
+            expansion = new Expansion<>(block, in, out);
+            cache = expansion;
+            return expansion;
+        }
+    }
+
+    /**
+     * A block and the facts of its nodes, indexed by position in the block.
+     */
+    private record Expansion<Node, Fact>(
+            BasicBlock<Node> block, Fact[] inFacts, Fact[] outFacts) {
+    }
+}
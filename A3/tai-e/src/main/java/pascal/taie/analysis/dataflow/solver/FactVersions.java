@@ -0,0 +1,100 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Version stamps of the facts of a solving process, which let a solver
+ * skip the meet of a fact into a target when the fact has not changed
+ * since its last meet into the same target.
+ * <p>
+ * The version of a node is the number of changes of the fact that the
+ * node propagates to its neighbors, i.e., the out (in) fact in forward
+ * (backward) analysis. Meet is idempotent and a target fact changes only
+ * by meets before it is transferred, so meeting an unchanged fact into
+ * the target again cannot change the target.
+ *
+ * @param <Node> type of nodes
+ */
+class FactVersions<Node> {
+
+    private final ToIntFunction<Node> indexer;
+
+    /**
+     * Node index -> version of the fact of the node.
+     */
+    private final int[] versions;
+
+    /**
+     * Node index -> versions of the facts of its sources (predecessors in
+     * forward analysis, successors in backward analysis) at the last meet,
+     * indexed by the positions of the sources. Created on first meet.
+     */
+    private final int[][] seen;
+
+    /**
+     * @param size    number of nodes
+     * @param indexer maps each node to a distinct index in [0, size)
+     */
+    FactVersions(int size, ToIntFunction<Node> indexer) {
+        this.indexer = indexer;
+        versions = new int[size];
+        seen = new int[size][];
+    }
+
+    /**
+     * Records a change of the fact of given node.
+     */
+    void update(Node node) {
+        ++versions[indexer.applyAsInt(node)];
+    }
+
+    /**
+     * Decides whether the fact of source needs to be met into the fact of
+     * target, and if so, records the current version of the source fact.
+     * The sources of a target must be iterated in the same order at every
+     * visit of the target, as they are identified by their positions.
+     *
+     * @param position   position of source among the sources of target
+     * @param numSources number of sources of target
+     * @return true if the fact of source has changed since its last meet
+     * into the fact of target, or it has never been met into target.
+     */
+    boolean needMeet(Node source, Node target, int position, int numSources) {
+        int index = indexer.applyAsInt(target);
+        int[] versionsOfSources = seen[index];
+        if (versionsOfSources == null) {
+            versionsOfSources = new int[numSources];
+            Arrays.fill(versionsOfSources, -1);
+            seen[index] = versionsOfSources;
+        }
+        int version = versions[indexer.applyAsInt(source)];
+        if (versionsOfSources[position] == version) {
+            return false;
+        }
+        versionsOfSources[position] = version;
+        return true;
+    }
+}
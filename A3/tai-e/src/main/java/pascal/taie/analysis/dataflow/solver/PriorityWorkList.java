@@ -0,0 +1,266 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.Graph;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work-list of CFG nodes, which always polls the node that comes first
+ * in reverse postorder of the CFG (or postorder for backward analyses),
+ * so that each node is visited after its predecessors (successors) as far
+ * as possible, and loops are stabilized before the nodes after them are
+ * visited. Nodes unreachable from the entry come after the reachable ones.
+ * <p>
+ * The work-list is backed by a bit set, which records the nodes
+ * in the list, and a binary heap of the priorities of the nodes.
+ * For CFGs of statements, the priorities are stored in an array indexed
+ * by {@link Stmt#getIndex()} (as in {@link StmtDataflowResult}), so that
+ * looking up the priority of a node does not hash the node.
+ *
+ * @param <Node> type of CFG nodes
+ */
+class PriorityWorkList<Node> {
+
+    /**
+     * Priority -> node. Smaller number means higher priority.
+     */
+    private final List<Node> nodes;
+
+    /**
+     * Node -> priority, null if the priorities are stored in
+     * {@link #stmtPriorities}.
+     */
+    @Nullable
+    private final Map<Node, Integer> priorities;
+
+    /**
+     * Priorities of statement nodes, indexed by {@link Stmt#getIndex()},
+     * where the entry and exit nodes of the CFG, which are not in the IR,
+     * are stored in the two slots after the statements.
+     * Null if the nodes are not statements.
+     */
+    @Nullable
+    private final int[] stmtPriorities;
+
+    @Nullable
+    private final Node entry;
+
+    @Nullable
+    private final Node exit;
+
+    private final BitSet inList;
+
+    private final int[] heap;
+
+    private int size = 0;
+
+    PriorityWorkList(CFG<Node> cfg, boolean isForward) {
+        this(cfg, cfg.getEntry(), isForward, cfg.getExit(),
+                cfg.getEntry() instanceof Stmt ? cfg.getIR().getStmts().size() : -1);
+    }
+
+    /**
+     * Creates a work-list of the nodes of given graph, ordered by
+     * depth-first search from the entry.
+     */
+    PriorityWorkList(Graph<Node> graph, Node entry, boolean isForward) {
+        this(graph, entry, isForward, null, -1);
+    }
+
+    /**
+     * @param stmtCount number of statements in the IR if the nodes are
+     *                  statements, otherwise -1
+     */
+    private PriorityWorkList(Graph<Node> graph, Node entry, boolean isForward,
+                             @Nullable Node exit, int stmtCount) {
+        List<Node> postorder = computePostorder(graph, entry);
+        if (isForward) {
+            Collections.reverse(postorder);
+        }
+        // unreachable nodes
+        if (postorder.size() < graph.getNumberOfNodes()) {
+            Set<Node> reached = Sets.newHybridSet(postorder);
+            for (Node node : graph) {
+                if (!reached.contains(node)) {
+                    postorder.add(node);
+                }
+            }
+        }
+        nodes = postorder;
+        if (stmtCount >= 0) {
+            this.entry = entry;
+            this.exit = exit;
+            priorities = null;
+            stmtPriorities = new int[stmtCount + 2];
+            for (int i = 0; i < nodes.size(); ++i) {
+                stmtPriorities[getSlot(nodes.get(i))] = i;
+            }
+        } else {
+            this.entry = null;
+            this.exit = null;
+            stmtPriorities = null;
+            priorities = Maps.newMap(nodes.size());
+            for (int i = 0; i < nodes.size(); ++i) {
+                priorities.put(nodes.get(i), i);
+            }
+        }
+        inList = new BitSet(nodes.size());
+        heap = new int[nodes.size()];
+    }
+
+    /**
+     * @return the nodes reachable from the entry, in postorder.
+     */
+    private static <Node> List<Node> computePostorder(Graph<Node> graph, Node entry) {
+        List<Node> postorder = new ArrayList<>(graph.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(graph.getNumberOfNodes());
+        // iterative depth-first search, as CFGs can be deep
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        visited.add(entry);
+        stack.push(entry);
+        succs.push(graph.getSuccsOf(entry).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    stack.push(succ);
+                    succs.push(graph.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postorder.add(stack.pop());
+                succs.pop();
+            }
+        }
+        return postorder;
+    }
+
+    /**
+     * @return the index of given node, which is its priority
+     * in this work-list. The indexes are in [0, number of nodes).
+     */
+    int indexOf(Node node) {
+        return stmtPriorities != null ?
+                stmtPriorities[getSlot(node)] : priorities.get(node);
+    }
+
+    /**
+     * @return the slot of given statement node in {@link #stmtPriorities}.
+     */
+    private int getSlot(Node node) {
+        if (node == entry) {
+            return stmtPriorities.length - 2;
+        } else if (node == exit) {
+            return stmtPriorities.length - 1;
+        } else {
+            return ((Stmt) node).getIndex();
+        }
+    }
+
+    /**
+     * Adds all nodes of the graph to this work-list.
+     */
+    void addAll() {
+        for (int i = 0; i < nodes.size(); ++i) {
+            if (!inList.get(i)) {
+                inList.set(i);
+                heap[size++] = i;
+            }
+        }
+        // priorities are added in ascending order, thus heap is valid
+    }
+
+    /**
+     * Adds a node to this work-list if it is not in the list.
+     */
+    void add(Node node) {
+        int priority = indexOf(node);
+        if (!inList.get(priority)) {
+            inList.set(priority);
+            siftUp(size++, priority);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes and returns the node with the highest priority.
+     */
+    Node poll() {
+        int priority = heap[0];
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        inList.clear(priority);
+        return nodes.get(priority);
+    }
+
+    private void siftUp(int i, int priority) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= priority) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = priority;
+    }
+
+    private void siftDown(int i, int priority) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right] < heap[child]) {
+                child = right;
+            }
+            if (priority <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = priority;
+    }
+}
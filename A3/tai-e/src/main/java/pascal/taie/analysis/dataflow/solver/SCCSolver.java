@@ -0,0 +1,328 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.Graph;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solver that decomposes the CFG into its strongly connected components
+ * (SCCs), and solves the SCCs in topological order of the condensation
+ * of the CFG (see {@link MergedSCCGraph}).
+ * <p>
+ * The SCCs are grouped into regions: a chain of SCCs, where each SCC
+ * is the only successor of the previous one and the previous one is its
+ * only predecessor, forms a region, which is solved SCC by SCC.
+ * Each region is solved by a task on the common {@link ForkJoinPool},
+ * which counts the predecessors of the region that have not been solved,
+ * and the task of a region is started as soon as all its predecessors
+ * are solved. Each SCC is solved by a work-list iteration over its nodes
+ * in reverse postorder (postorder for backward analyses), which only
+ * writes the facts of its own nodes, thus the result does not depend on
+ * how the regions are scheduled.
+ * <p>
+ * Decomposing a CFG and scheduling its regions does not pay off for small
+ * CFGs, so the CFGs with fewer nodes than the parallel threshold are
+ * solved by a {@link WorkListSolver}.
+ * <p>
+ * As different regions may be solved by different threads, the facts of
+ * all nodes are created on initialization, and the analysis functions
+ * must be thread-safe, which is already required for analyzing
+ * different methods in parallel.
+ */
+class SCCSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    /**
+     * Default minimum number of nodes in a CFG for solving its SCCs
+     * in parallel.
+     */
+    static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+    private final int parallelThreshold;
+
+    /**
+     * Solver of the CFGs which are smaller than {@link #parallelThreshold}.
+     */
+    private final WorkListSolver<Node, Fact> fallback;
+
+    SCCSolver(DataflowAnalysis<Node, Fact> analysis) {
+        this(analysis, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param parallelThreshold minimum number of nodes in a CFG for
+     *                          solving its SCCs in parallel
+     */
+    SCCSolver(DataflowAnalysis<Node, Fact> analysis, int parallelThreshold) {
+        super(analysis);
+        this.parallelThreshold = parallelThreshold;
+        this.fallback = new WorkListSolver<>(analysis);
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        return cfg.getNumberOfNodes() < parallelThreshold ?
+                fallback.solve(cfg) : super.solve(cfg);
+    }
+
+    @Override
+    public void setProfiler(@Nullable SolverProfiler profiler) {
+        super.setProfiler(profiler);
+        fallback.setProfiler(profiler);
+    }
+
+    @Override
+    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        super.initializeForward(cfg, result);
+        for (Node node : cfg) {
+            if (!cfg.isEntry(node)) {
+                getInFactForWrite(cfg, result, node);
+                getOutFactForWrite(cfg, result, node);
+            }
+        }
+    }
+
+    @Override
+    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        super.initializeBackward(cfg, result);
+        for (Node node : cfg) {
+            if (!cfg.isExit(node)) {
+                getInFactForWrite(cfg, result, node);
+                getOutFactForWrite(cfg, result, node);
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solve(cfg, cfg, result, true);
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solve(cfg, WTOSolver.reverse(cfg), result, false);
+    }
+
+    /**
+     * Solves the regions of graph, each region as soon as
+     * all its predecessors are solved.
+     *
+     * @param graph the CFG for forward analysis, or its reverse
+     *              for backward analysis
+     */
+    private void solve(CFG<Node> cfg, Graph<Node> graph,
+                       DataflowResult<Node, Fact> result, boolean isForward) {
+        PriorityWorkList<Node> order = new PriorityWorkList<>(cfg, isForward);
+        SolverProfiler.Trace trace = newTrace(cfg);
+        Region<Node> root = computeRegions(graph);
+        new RegionTask(null, cfg, result, isForward, order, trace, root).invoke();
+        finishTrace(trace);
+    }
+
+    /**
+     * A chain of SCCs which is solved by one task.
+     */
+    private static class Region<N> {
+
+        /**
+         * SCCs of this region, in topological order.
+         */
+        private final List<List<N>> sccs = new ArrayList<>();
+
+        private final Set<Region<N>> succs = Sets.newHybridSet();
+
+        /**
+         * Number of the predecessors of this region which are not solved yet.
+         */
+        private final AtomicInteger pendingPreds = new AtomicInteger();
+
+        private void addSucc(Region<N> succ) {
+            if (succ != this && succs.add(succ)) {
+                succ.pendingPreds.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return an empty region which precedes all regions of graph,
+     * i.e., the regions are reachable from the returned region.
+     */
+    private static <N> Region<N> computeRegions(Graph<N> graph) {
+        MergedSCCGraph<N> sccGraph = new MergedSCCGraph<>(graph);
+        Map<MergedNode<N>, Region<N>> regionOf =
+                Maps.newMap(sccGraph.getNumberOfNodes());
+        Region<N> root = new Region<>();
+        for (MergedNode<N> scc : new TopoSorter<>(sccGraph).get()) {
+            List<MergedNode<N>> preds = sccGraph.getPredsOf(scc)
+                    .stream()
+                    .filter(pred -> pred != scc)
+                    .toList();
+            Region<N> region;
+            if (preds.size() == 1 && sccGraph.getSuccsOf(preds.get(0))
+                    .stream()
+                    .allMatch(succ -> succ == scc || succ == preds.get(0))) {
+                // scc continues the chain of its only predecessor
+                region = regionOf.get(preds.get(0));
+            } else {
+                region = new Region<>();
+                if (preds.isEmpty()) {
+                    root.addSucc(region);
+                } else {
+                    preds.forEach(pred -> regionOf.get(pred).addSucc(region));
+                }
+            }
+            region.sccs.add(scc.getNodes());
+            regionOf.put(scc, region);
+        }
+        return root;
+    }
+
+    /**
+     * Task that solves a region, and then starts the tasks of
+     * its successors whose predecessors are all solved.
+     */
+    @SuppressWarnings("serial")
+    private class RegionTask extends CountedCompleter<Void> {
+
+        private final CFG<Node> cfg;
+
+        private final DataflowResult<Node, Fact> result;
+
+        private final boolean isForward;
+
+        private final PriorityWorkList<Node> order;
+
+        /**
+         * Trace shared by the tasks of a CFG, or null if profiling is disabled.
+         */
+        @Nullable
+        private final SolverProfiler.Trace trace;
+
+        private final Region<Node> region;
+
+        private RegionTask(@Nullable RegionTask parent, CFG<Node> cfg,
+                           DataflowResult<Node, Fact> result, boolean isForward,
+                           PriorityWorkList<Node> order,
+                           @Nullable SolverProfiler.Trace trace, Region<Node> region) {
+            super(parent);
+            this.cfg = cfg;
+            this.result = result;
+            this.isForward = isForward;
+            this.order = order;
+            this.trace = trace;
+            this.region = region;
+        }
+
+        @Override
+        public void compute() {
+            region.sccs.forEach(scc ->
+                    solveSCC(cfg, result, isForward, order, trace, scc));
+            for (Region<Node> succ : region.succs) {
+                if (succ.pendingPreds.decrementAndGet() == 0) {
+                    addToPendingCount(1);
+                    new RegionTask(this, cfg, result, isForward,
+                            order, trace, succ).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+
+    /**
+     * Iterates the nodes of an SCC until its facts are stable. The nodes
+     * are always visited in the order given by the work-list, and the
+     * facts flowing into the SCC from other SCCs are already stable.
+     * As the SCCs of different regions may be solved concurrently,
+     * the visits are recorded in the trace while holding its lock.
+     */
+    private void solveSCC(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                          boolean isForward, PriorityWorkList<Node> order,
+                          @Nullable SolverProfiler.Trace trace, List<Node> scc) {
+        List<Node> nodes = new ArrayList<>(scc);
+        nodes.sort(Comparator.comparingInt(order::indexOf));
+        Map<Node, Integer> positions = Maps.newMap(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            positions.put(nodes.get(i), i);
+        }
+        BitSet workList = new BitSet(nodes.size());
+        workList.set(0, nodes.size());
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            Node node = nodes.get(i);
+            if (cfg.isEntry(node) || cfg.isExit(node)) continue;
+            Set<Node> sources = isForward ?
+                    cfg.getPredsOf(node) : cfg.getSuccsOf(node);
+            Fact output;
+            boolean changed;
+            if (isForward) {
+                Fact in = result.getInFact(node);
+                for (Node pred : sources) {
+                    analysis.meetInto(result.getOutFact(pred), in);
+                }
+                output = result.getOutFact(node);
+                changed = analysis.transferNode(node, in, output);
+            } else {
+                Fact out = result.getOutFact(node);
+                for (Node succ : sources) {
+                    analysis.meetInto(result.getInFact(succ), out);
+                }
+                output = result.getInFact(node);
+                changed = analysis.transferNode(node, output, out);
+            }
+            if (trace != null) {
+                synchronized (trace) {
+                    trace.visit(node, WorkListSolver.isLoopHead(order, node, sources));
+                    sources.forEach(source -> trace.meet());
+                    trace.transfer(output, changed);
+                }
+            }
+            if (changed) {
+                for (Node next : isForward ?
+                        cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                    Integer position = positions.get(next);
+                    if (position != null) {
+                        workList.set(position);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -24,19 +24,61 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+
+import javax.annotation.Nullable;
 
 /**
  * Base class for data-flow analysis solver, which provides common
  * functionalities for different solver implementations.
+ * <p>
+ * Method analyses are run on the methods in parallel, so a solver must
+ * not keep the state of a solving process in its fields.
+ * <p>
+ * Only the boundary facts are created on initialization. The other nodes
+ * have no facts in the result until their facts are written for the first
+ * time, and until then, they are regarded as having the initial fact,
+ * which is the identity of meet. After solving, the initial facts of the
+ * nodes which are never written are created when they are queried from
+ * the result, so that every node has a fact of its own.
  *
  * @param <Node> type of CFG nodes
  * @param <Fact> type of data-flow facts
  */
 public abstract class Solver<Node, Fact> {
 
+    /**
+     * Name of the analysis option that selects solver strategy.
+     */
+    public static final String SOLVER_OPTION = "solver";
+
+    public static final String WORKLIST = "worklist";
+
+    public static final String WTO = "wto";
+
+    public static final String BLOCK = "block";
+
+    public static final String SCC = "scc";
+
+    /**
+     * Name of the analysis option that specifies the minimum number of
+     * nodes in a CFG for the scc strategy to solve its SCCs in parallel.
+     * Smaller CFGs are solved by the work-list solver.
+     */
+    public static final String PARALLEL_THRESHOLD_OPTION = "parallel-threshold";
+
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Profiler of the solving processes, or null if profiling is disabled.
+     */
+    @Nullable
+    private SolverProfiler profiler;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
     }
@@ -46,7 +88,73 @@ public abstract class Solver<Node, Fact> {
      */
     public static <Node, Fact> Solver<Node, Fact> makeSolver(
             DataflowAnalysis<Node, Fact> analysis) {
-        return new WorkListSolver<>(analysis);
+        return makeSolver(analysis, WORKLIST);
+    }
+
+    /**
+     * Static factory method to create a new solver of given strategy
+     * for given analysis. The available strategies are:
+     * <ul>
+     *     <li>worklist: the work-list solver (default)
+     *     <li>wto: the solver that iterates along weak topological ordering,
+     *     and performs widening and narrowing at loop heads
+     *     <li>block: the work-list solver that iterates over basic blocks,
+     *     and computes the facts inside blocks on demand
+     *     <li>scc: the solver that solves the strongly connected components
+     *     of the CFG in topological order, and solves the independent ones
+     *     in parallel
+     * </ul>
+     *
+     * @param strategy name of the strategy, or null for the default one
+     * @throws ConfigException if the strategy is unknown, or the analysis
+     *                         has edge transfer but the strategy is not wto
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String strategy) {
+        if (strategy == null) {
+            strategy = WORKLIST;
+        }
+        checkEdgeTransfer(analysis, strategy);
+        return switch (strategy) {
+            case WORKLIST -> new WorkListSolver<>(analysis);
+            case WTO -> new WTOSolver<>(analysis);
+            case BLOCK -> new BlockSolver<>(analysis);
+            case SCC -> new SCCSolver<>(analysis);
+            default -> throw new ConfigException("Unknown solver strategy: " + strategy);
+        };
+    }
+
+    /**
+     * Static factory method to create a new solver for given analysis,
+     * which is configured by options {@value #SOLVER_OPTION} and
+     * {@value #PARALLEL_THRESHOLD_OPTION}. If no strategy is given,
+     * the analyses having edge transfer run on the WTO solver.
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, AnalysisOptions options) {
+        String strategy = options.getString(SOLVER_OPTION);
+        if (strategy == null && analysis.hasEdgeTransfer()) {
+            strategy = WTO;
+        }
+        if (SCC.equals(strategy) && options.get(PARALLEL_THRESHOLD_OPTION) != null) {
+            checkEdgeTransfer(analysis, strategy);
+            return new SCCSolver<>(analysis,
+                    options.getInt(PARALLEL_THRESHOLD_OPTION));
+        }
+        return makeSolver(analysis, strategy);
+    }
+
+    /**
+     * Only the WTO solver supports edge transfer, thus the analyses
+     * having edge transfer cannot run on the other solvers.
+     */
+    private static void checkEdgeTransfer(
+            DataflowAnalysis<?, ?> analysis, String strategy) {
+        if (analysis.hasEdgeTransfer() && !WTO.equals(strategy)) {
+            throw new ConfigException(analysis.getClass().getSimpleName() +
+                    " has edge transfer, which is not supported by solver " +
+                    strategy);
+        }
     }
 
     /**
@@ -61,13 +169,41 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Sets the profiler of this solver. Solvers which support profiling
+     * record the solving process of each CFG in the profiler.
+     *
+     * @param profiler the profiler, or null to disable profiling
+     */
+    public void setProfiler(@Nullable SolverProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * @return a new trace for recording the solving process of given CFG,
+     * or null if profiling is disabled.
+     */
+    @Nullable
+    protected SolverProfiler.Trace newTrace(CFG<Node> cfg) {
+        return profiler != null ? profiler.newTrace(cfg.getMethod()) : null;
+    }
+
+    /**
+     * Adds the trace of a finished solving process to the profiler.
+     */
+    protected void finishTrace(@Nullable SolverProfiler.Trace trace) {
+        if (trace != null) {
+            profiler.finish(trace);
+        }
+    }
+
     /**
      * Creates and initializes a new data-flow result for given CFG.
      *
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,28 +212,69 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * @return new data-flow result for given CFG. For CFGs of statements,
+     * the facts are stored in arrays indexed by statements.
+     */
+    @SuppressWarnings("unchecked")
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt && cfg.getIR() != null) {
+            return (DataflowResult<Node, Fact>)
+                    new StmtDataflowResult<Fact>((CFG<Stmt>) cfg);
+        }
+        return new DataflowResult<>();
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - finish me
-        for (Node node: cfg) {
-            if (cfg.isEntry(node)) {
-                result.setOutFact(node, analysis.newBoundaryFact(cfg));
-            }else {
-                result.setInFact(node, analysis.newInitialFact());
-                result.setOutFact(node, analysis.newInitialFact());
-            }
-        }
+        // facts of non-boundary nodes are created on their first writes
+        result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
     }
 
     protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - finish me
-        for (Node node: cfg) {
-            if (cfg.isExit(node)) {
-                result.setInFact(node, analysis.newBoundaryFact(cfg));
-            }else {
-                result.setInFact(node, analysis.newInitialFact());
-                result.setOutFact(node, analysis.newInitialFact());
-            }
+        // facts of non-boundary nodes are created on their first writes
+        result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
+    }
+
+    /**
+     * @return the in fact of node to be written, which is created
+     * if node has no in fact in result yet.
+     */
+    protected Fact getInFactForWrite(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                     Node node) {
+        Fact fact = result.getInFact(node);
+        if (fact == null) {
+            fact = analysis.newInitialFact(cfg);
+            result.setInFact(node, fact);
+        }
+        return fact;
+    }
+
+    /**
+     * @return the out fact of node to be written, which is created
+     * if node has no out fact in result yet.
+     */
+    protected Fact getOutFactForWrite(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                      Node node) {
+        Fact fact = result.getOutFact(node);
+        if (fact == null) {
+            fact = analysis.newInitialFact(cfg);
+            result.setOutFact(node, fact);
         }
+        return fact;
+    }
+
+    /**
+     * Lets the facts of the non-boundary nodes which have not been written
+     * be created when they are queried from result, so that all of them
+     * have facts in result.
+     */
+    protected void createInitialFactsOnQuery(CFG<Node> cfg,
+                                             DataflowResult<Node, Fact> result) {
+        Node boundary = analysis.isForward() ? cfg.getEntry() : cfg.getExit();
+        result.setFactFactory(node -> node != boundary && cfg.hasNode(node) ?
+                analysis.newInitialFact(cfg) : null);
     }
 
     /**
@@ -0,0 +1,360 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.Analysis;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.ir.IRPrinter;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Profiler of data-flow solvers, which records how the solver visits
+ * the nodes of each method, and reports the methods and loops that take
+ * the most visits to reach the fixed point.
+ * <p>
+ * The profiler is enabled by option {@value #PROFILE_FILE_OPTION} of the
+ * analysis. The solving process of each method is recorded in a
+ * {@link Trace}, which includes the visits of each node, the numbers of
+ * meets and transfers, and the sizes of the facts over time. When the
+ * solving of a method finishes, its trace is summarized into the report
+ * in memory. The report file is written every {@value #WRITE_INTERVAL}
+ * methods, by {@link #flush()}, and when the JVM exits, so that it is
+ * complete however the analysis ends. The traces of different methods
+ * can be recorded concurrently.
+ */
+public class SolverProfiler {
+
+    private static final Logger logger = LogManager.getLogger(SolverProfiler.class);
+
+    /**
+     * Name of the analysis option that specifies the report file.
+     */
+    public static final String PROFILE_FILE_OPTION = "profile-file";
+
+    /**
+     * Number of the hottest methods and loops in the report.
+     */
+    private static final int TOP_N = 10;
+
+    /**
+     * Number of the hottest nodes shown for each method in the report.
+     */
+    private static final int TOP_NODES = 5;
+
+    /**
+     * Number of the methods added to the report between two writes
+     * of the report file.
+     */
+    private static final int WRITE_INTERVAL = 1000;
+
+    private final String id;
+
+    private final Path file;
+
+    private int methodCount = 0;
+
+    /**
+     * Number of the methods in the report when it was last written.
+     */
+    private int writtenMethodCount = 0;
+
+    private long visitCount = 0;
+
+    private long meetCount = 0;
+
+    private long transferCount = 0;
+
+    /**
+     * Summaries of the hottest methods, in descending order of visits.
+     */
+    private final List<String> hottestMethods = new ArrayList<>();
+
+    private final List<Long> hottestMethodVisits = new ArrayList<>();
+
+    /**
+     * The hottest loop heads, in descending order of visits.
+     */
+    private final List<Loop> hottestLoops = new ArrayList<>();
+
+    private SolverProfiler(String id, Path file) {
+        this.id = id;
+        this.file = file;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+    }
+
+    /**
+     * @return the profiler of given analysis, or null if the analysis
+     * does not specify option {@value #PROFILE_FILE_OPTION}.
+     */
+    @Nullable
+    public static SolverProfiler of(Analysis analysis) {
+        String file = analysis.getOptions().getString(PROFILE_FILE_OPTION);
+        return file != null ? new SolverProfiler(analysis.getId(), Path.of(file)) : null;
+    }
+
+    /**
+     * @return a new trace for recording the solving process of given method.
+     */
+    public Trace newTrace(Object method) {
+        return new Trace(String.valueOf(method));
+    }
+
+    /**
+     * Adds the finished trace to the report.
+     */
+    public void finish(Trace trace) {
+        finish(List.of(trace));
+    }
+
+    /**
+     * Adds the finished traces to the report.
+     */
+    public synchronized void finish(Collection<Trace> traces) {
+        for (Trace trace : traces) {
+            ++methodCount;
+            visitCount += trace.visitCount;
+            meetCount += trace.meetCount;
+            transferCount += trace.transferCount;
+            addHottestMethod(trace);
+            trace.loopHeads.forEach(head -> addHottestLoop(new Loop(
+                    trace.method, toString(head), trace.visits.get(head))));
+        }
+        if (methodCount - writtenMethodCount >= WRITE_INTERVAL) {
+            writeReport();
+        }
+    }
+
+    /**
+     * Writes the report file if any method has been added to the report
+     * since it was last written.
+     */
+    public synchronized void flush() {
+        if (methodCount > writtenMethodCount) {
+            writeReport();
+        }
+    }
+
+    private void addHottestMethod(Trace trace) {
+        int i = 0;
+        while (i < hottestMethodVisits.size() &&
+                hottestMethodVisits.get(i) >= trace.visitCount) {
+            ++i;
+        }
+        if (i < TOP_N) {
+            hottestMethods.add(i, trace.summarize());
+            hottestMethodVisits.add(i, trace.visitCount);
+            if (hottestMethods.size() > TOP_N) {
+                hottestMethods.remove(TOP_N);
+                hottestMethodVisits.remove(TOP_N);
+            }
+        }
+    }
+
+    private void addHottestLoop(Loop loop) {
+        int i = 0;
+        while (i < hottestLoops.size() &&
+                hottestLoops.get(i).visits() >= loop.visits()) {
+            ++i;
+        }
+        if (i < TOP_N) {
+            hottestLoops.add(i, loop);
+            if (hottestLoops.size() > TOP_N) {
+                hottestLoops.remove(TOP_N);
+            }
+        }
+    }
+
+    private void writeReport() {
+        writtenMethodCount = methodCount;
+        try (PrintStream out = new PrintStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.printf("Solver profile of %s%n", id);
+            out.printf("#methods: %d, #visits: %d, #meets: %d, #transfers: %d%n",
+                    methodCount, visitCount, meetCount, transferCount);
+            out.println();
+            out.printf("Top %d hottest methods:%n", TOP_N);
+            hottestMethods.forEach(out::print);
+            out.println();
+            out.printf("Top %d hottest loops (by visits of loop heads):%n", TOP_N);
+            hottestLoops.forEach(loop -> out.printf("%8d  %s %s%n",
+                    loop.visits(), loop.method(), loop.head()));
+        } catch (IOException e) {
+            logger.warn("Failed to write solver profile to {}", file, e);
+        }
+    }
+
+    private static String toString(Object node) {
+        return node instanceof Stmt stmt ? IRPrinter.toString(stmt) : String.valueOf(node);
+    }
+
+    /**
+     * @return the size of given fact, or -1 if the size is unknown.
+     */
+    private static int sizeOf(Object fact) {
+        if (fact instanceof SetFact<?> setFact) {
+            return setFact.size();
+        } else if (fact instanceof MapFact<?, ?> mapFact) {
+            return mapFact.keySet().size();
+        } else {
+            return -1;
+        }
+    }
+
+    private record Loop(String method, String head, int visits) {
+    }
+
+    /**
+     * Records the solving process of a method. A trace is used by
+     * only one thread at a time, or by the threads holding its lock.
+     */
+    public static class Trace {
+
+        /**
+         * Maximum number of the samples of fact sizes.
+         */
+        private static final int MAX_SAMPLES = 64;
+
+        private final String method;
+
+        private final Map<Object, Integer> visits = Maps.newMap();
+
+        private final Set<Object> loopHeads = Sets.newHybridSet();
+
+        private long visitCount = 0;
+
+        private long meetCount = 0;
+
+        private long transferCount = 0;
+
+        private long changeCount = 0;
+
+        /**
+         * Sizes of the output facts of every {@link #stride}-th transfer.
+         * When the samples are full, every other sample is dropped and
+         * the stride is doubled, so the samples cover the whole process.
+         */
+        private final int[] sizes = new int[MAX_SAMPLES];
+
+        private int sampleCount = 0;
+
+        private int stride = 1;
+
+        private int maxSize = -1;
+
+        private Trace(String method) {
+            this.method = method;
+        }
+
+        /**
+         * Records a visit of given node.
+         *
+         * @param isLoopHead whether the node is the head of a loop
+         */
+        public void visit(Object node, boolean isLoopHead) {
+            ++visitCount;
+            visits.merge(node, 1, Integer::sum);
+            if (isLoopHead) {
+                loopHeads.add(node);
+            }
+        }
+
+        /**
+         * Records a meet.
+         */
+        public void meet() {
+            ++meetCount;
+        }
+
+        /**
+         * Records a transfer which outputs given fact.
+         *
+         * @param changed whether the transfer changed the output fact
+         */
+        public void transfer(Object output, boolean changed) {
+            if (changed) {
+                ++changeCount;
+            }
+            if (transferCount++ % stride == 0) {
+                int size = sizeOf(output);
+                if (size >= 0) {
+                    maxSize = Math.max(maxSize, size);
+                    if (sampleCount == MAX_SAMPLES) {
+                        for (int i = 0; i < MAX_SAMPLES / 2; ++i) {
+                            sizes[i] = sizes[2 * i];
+                        }
+                        sampleCount = MAX_SAMPLES / 2;
+                        stride *= 2;
+                    }
+                    sizes[sampleCount++] = size;
+                }
+            }
+        }
+
+        /**
+         * @return the summary of this trace in the report.
+         */
+        private String summarize() {
+            StringBuilder builder = new StringBuilder();
+            String nl = System.lineSeparator();
+            builder.append(String.format("%8d  %s%n", visitCount, method))
+                    .append(String.format(
+                            "          #nodes: %d, #meets: %d, #transfers: %d (%d changed)%n",
+                            visits.size(), meetCount, transferCount, changeCount));
+            if (maxSize >= 0) {
+                builder.append(String.format(
+                        "          max fact size: %d, sizes per %d transfer(s): %s%n",
+                        maxSize, stride, Arrays.toString(
+                                Arrays.copyOf(sizes, sampleCount))));
+            }
+            visits.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.<Object, Integer>comparingByValue(
+                            Comparator.reverseOrder()))
+                    .limit(TOP_NODES)
+                    .forEach(e -> builder.append(String.format("          %6d  %s%s",
+                            e.getValue(), SolverProfiler.toString(e.getKey()),
+                            loopHeads.contains(e.getKey()) ? " (loop head)" : ""))
+                            .append(nl));
+            return builder.toString();
+        }
+    }
+}
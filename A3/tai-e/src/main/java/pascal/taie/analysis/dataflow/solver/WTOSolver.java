@@ -0,0 +1,381 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.Graph;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Solver that iterates along a weak topological ordering (WTO) of the CFG,
+ * i.e., the recursive iteration strategy of Bourdoncle. Each component
+ * (loop) of the WTO is iterated until its head is stable, and the nested
+ * components are stabilized in each iteration of the enclosing ones.
+ * <p>
+ * The WTO is computed by recursively decomposing the CFG into strongly
+ * connected components, which are visited in topological order: the head
+ * of each component is its entry node, and the rest of the component
+ * is decomposed again after removing the head.
+ * <p>
+ * If the analysis needs widening, the facts of component heads are widened
+ * from the second iteration on, and after the component stabilizes, it is
+ * iterated again from scratch, applying narrowing at the head, to refine
+ * the results.
+ * <p>
+ * Different from the other solvers, if the analysis opts in edge transfer
+ * (see {@link DataflowAnalysis#hasEdgeTransfer()}), this solver applies
+ * the edge transfer when meeting the facts of predecessors, so that,
+ * e.g., the conditions of branches can refine the facts flowing along them.
+ * For the other analyses, this solver reaches the same fixed point as
+ * the other solvers.
+ * <p>
+ * The solver copies facts by meeting them into new initial facts, thus it
+ * requires the initial fact of the analysis to be the identity of meet,
+ * which holds for typical analyses.
+ */
+class WTOSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    /**
+     * Maximum number of narrowing iterations of each component.
+     */
+    private static final int MAX_NARROWING_ITERATIONS = 5;
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        Iteration iteration = new Iteration(cfg, result, true);
+        iteration.solve(buildWTO(cfg));
+        createInitialFactsOnQuery(cfg, result);
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        Iteration iteration = new Iteration(cfg, result, false);
+        iteration.solve(buildWTO(reverse(cfg)));
+        createInitialFactsOnQuery(cfg, result);
+    }
+
+    /**
+     * Element of WTO, i.e., a single node or a component.
+     */
+    private sealed interface Element<N> permits Vertex, Component {
+    }
+
+    private record Vertex<N>(N node) implements Element<N> {
+    }
+
+    private record Component<N>(N head, List<Element<N>> body)
+            implements Element<N> {
+    }
+
+    private static <N> List<Element<N>> buildWTO(Graph<N> graph) {
+        return buildWTO(graph, graph.getNodes());
+    }
+
+    /**
+     * @return the WTO of the subgraph of graph induced by given nodes.
+     */
+    private static <N> List<Element<N>> buildWTO(Graph<N> graph, Set<N> nodes) {
+        Graph<N> subgraph = new Subgraph<>(graph, nodes);
+        List<Element<N>> wto = new ArrayList<>();
+        TopoSorter<MergedNode<N>> sorter = new TopoSorter<>(
+                new MergedSCCGraph<>(subgraph));
+        for (MergedNode<N> scc : sorter.get()) {
+            List<N> members = scc.getNodes();
+            N first = members.get(0);
+            if (members.size() == 1 && !subgraph.hasEdge(first, first)) {
+                wto.add(new Vertex<>(first));
+            } else {
+                // select the head in the whole graph, so that the edges
+                // from the head of the enclosing component are seen
+                N head = selectHead(graph, members);
+                Set<N> body = Sets.newHybridSet(members);
+                body.remove(head);
+                wto.add(new Component<>(head, buildWTO(graph, body)));
+            }
+        }
+        return wto;
+    }
+
+    /**
+     * @return the node of the SCC that is entered from outside (including
+     * from the enclosing components), or the first node if no such node exists.
+     */
+    private static <N> N selectHead(Graph<N> graph, List<N> scc) {
+        Set<N> members = Sets.newHybridSet(scc);
+        for (N node : scc) {
+            for (N pred : graph.getPredsOf(node)) {
+                if (!members.contains(pred)) {
+                    return node;
+                }
+            }
+        }
+        return scc.get(0);
+    }
+
+    /**
+     * Subgraph induced by a set of nodes.
+     */
+    private record Subgraph<N>(Graph<N> graph, Set<N> nodes)
+            implements Graph<N> {
+
+        @Override
+        public boolean hasNode(N node) {
+            return nodes.contains(node);
+        }
+
+        @Override
+        public boolean hasEdge(N source, N target) {
+            return nodes.contains(source) && nodes.contains(target) &&
+                    graph.hasEdge(source, target);
+        }
+
+        @Override
+        public Set<N> getPredsOf(N node) {
+            return graph.getPredsOf(node)
+                    .stream()
+                    .filter(nodes::contains)
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public Set<N> getSuccsOf(N node) {
+            return graph.getSuccsOf(node)
+                    .stream()
+                    .filter(nodes::contains)
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public Set<N> getNodes() {
+            return nodes;
+        }
+    }
+
+    /**
+     * @return the view of given graph with all edges reversed.
+     */
+    static <N> Graph<N> reverse(Graph<N> graph) {
+        return new Graph<>() {
+
+            @Override
+            public boolean hasNode(N node) {
+                return graph.hasNode(node);
+            }
+
+            @Override
+            public boolean hasEdge(N source, N target) {
+                return graph.hasEdge(target, source);
+            }
+
+            @Override
+            public Set<N> getPredsOf(N node) {
+                return graph.getSuccsOf(node);
+            }
+
+            @Override
+            public Set<N> getSuccsOf(N node) {
+                return graph.getPredsOf(node);
+            }
+
+            @Override
+            public Set<N> getNodes() {
+                return graph.getNodes();
+            }
+        };
+    }
+
+    /**
+     * Iterates the WTO of a CFG. For backward analysis, the input of
+     * a node is its out fact, and the output is its in fact.
+     */
+    private class Iteration {
+
+        private final CFG<Node> cfg;
+
+        private final DataflowResult<Node, Fact> result;
+
+        private final boolean isForward;
+
+        private final boolean needWidening;
+
+        private final boolean hasEdgeTransfer;
+
+        /**
+         * Initial fact shared by the nodes whose facts have not been written.
+         */
+        private final Fact bottom;
+
+        private Iteration(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                          boolean isForward) {
+            this.cfg = cfg;
+            this.result = result;
+            this.isForward = isForward;
+            this.needWidening = analysis.needWidening();
+            this.hasEdgeTransfer = analysis.hasEdgeTransfer();
+            this.bottom = analysis.newInitialFact(cfg);
+        }
+
+        private void solve(List<Element<Node>> wto) {
+            wto.forEach(this::solve);
+        }
+
+        private void solve(Element<Node> element) {
+            if (element instanceof Vertex<Node> vertex) {
+                visit(vertex.node(), false);
+            } else {
+                Component<Node> component = (Component<Node>) element;
+                boolean first = true;
+                while (true) {
+                    boolean changed = visit(component.head(), needWidening && !first);
+                    if (!first && !changed) {
+                        break;
+                    }
+                    first = false;
+                    solve(component.body());
+                }
+                if (needWidening) {
+                    narrow(component);
+                }
+            }
+        }
+
+        /**
+         * Meets the outputs of the (reversed) predecessors into the input
+         * of node, and applies transfer function to it.
+         *
+         * @return true if the output of node changed, otherwise false.
+         */
+        private boolean visit(Node node, boolean widen) {
+            if (cfg.isEntry(node) || cfg.isExit(node)) {
+                return false;
+            }
+            Fact input = isForward ?
+                    getInFactForWrite(cfg, result, node) :
+                    getOutFactForWrite(cfg, result, node);
+            Fact oldInput = widen ? copy(input) : null;
+            meetInputs(node, input);
+            if (widen) {
+                analysis.widen(node, oldInput, input);
+            }
+            return isForward ?
+                    analysis.transferNode(node, input,
+                            getOutFactForWrite(cfg, result, node)) :
+                    analysis.transferNode(node,
+                            getInFactForWrite(cfg, result, node), input);
+        }
+
+        /**
+         * Iterates the component from scratch to refine its results.
+         */
+        private void narrow(Component<Node> component) {
+            for (int i = 0; i < MAX_NARROWING_ITERATIONS; ++i) {
+                boolean changed = recompute(component.head(), true);
+                for (Element<Node> element : component.body()) {
+                    if (element instanceof Vertex<Node> vertex) {
+                        recompute(vertex.node(), false);
+                    } else {
+                        narrow((Component<Node>) element);
+                    }
+                }
+                if (!changed) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Recomputes the facts of node from scratch.
+         *
+         * @return true if the output of node changed, otherwise false.
+         */
+        private boolean recompute(Node node, boolean isHead) {
+            if (cfg.isEntry(node) || cfg.isExit(node)) {
+                return false;
+            }
+            Fact input = analysis.newInitialFact(cfg);
+            meetInputs(node, input);
+            if (isHead) {
+                analysis.narrow(node, getInput(node), input);
+            }
+            Fact output = analysis.newInitialFact(cfg);
+            Fact oldOutput = getOutput(node);
+            if (isForward) {
+                result.setInFact(node, input);
+                result.setOutFact(node, output);
+                analysis.transferNode(node, input, output);
+            } else {
+                result.setOutFact(node, input);
+                result.setInFact(node, output);
+                analysis.transferNode(node, output, input);
+            }
+            return !output.equals(oldOutput);
+        }
+
+        /**
+         * Meets the outputs of the (reversed) predecessors of node into
+         * input, applying edge transfer if the analysis opts in it.
+         */
+        private void meetInputs(Node node, Fact input) {
+            for (Edge<Node> edge : isForward ?
+                    cfg.getInEdgesOf(node) : cfg.getOutEdgesOf(node)) {
+                Fact output = getOutput(isForward ?
+                        edge.getSource() : edge.getTarget());
+                if (hasEdgeTransfer && analysis.needTransferEdge(edge)) {
+                    output = analysis.transferEdge(edge, output);
+                }
+                analysis.meetInto(output, input);
+            }
+        }
+
+        private Fact copy(Fact fact) {
+            Fact copy = analysis.newInitialFact(cfg);
+            analysis.meetInto(fact, copy);
+            return copy;
+        }
+
+        private Fact getInput(Node node) {
+            Fact fact = isForward ? result.getInFact(node) : result.getOutFact(node);
+            return fact != null ? fact : bottom;
+        }
+
+        private Fact getOutput(Node node) {
+            Fact fact = isForward ? result.getOutFact(node) : result.getInFact(node);
+            return fact != null ? fact : bottom;
+        }
+    }
+}
@@ -25,9 +25,7 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
-import pascal.taie.util.collection.Sets;
 
-import java.util.Collections;
 import java.util.Set;
 
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
@@ -38,53 +36,143 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        Set<Node> newWorkList = Sets.newHybridSet(cfg.getNodes());
-        Set<Node> oldWorkList = Sets.newHybridSet(Collections.emptySet());
-        Set<Node> tmpWorkList;
-        while (!newWorkList.isEmpty()) {
-            tmpWorkList = oldWorkList;
-            oldWorkList = newWorkList;
-            newWorkList = tmpWorkList;
-            boolean hasChanged;
-            for (Node node : oldWorkList) {
-                hasChanged = false;
-                if (cfg.isEntry(node) || cfg.isExit(node)) continue;
-                for (Node preNode : cfg.getPredsOf(node)) {
-                    analysis.meetInto(result.getOutFact(preNode), result.getInFact(node));
+        PriorityWorkList<Node> workList = new PriorityWorkList<>(cfg, true);
+        SolverProfiler.Trace trace = newTrace(cfg);
+        FactVersions<Node> versions = new FactVersions<>(
+                cfg.getNumberOfNodes(), workList::indexOf);
+        // shared by the nodes whose in facts have not been written
+        Fact bottom = analysis.newInitialFact(cfg);
+        // output of the transfers of the nodes without out facts,
+        // which is stored as out fact only if the transfer changes it
+        Fact scratch = null;
+        workList.addAll();
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            if (cfg.isEntry(node) || cfg.isExit(node)) continue;
+            Fact in = result.getInFact(node);
+            Set<Node> preds = cfg.getPredsOf(node);
+            if (trace != null) {
+                trace.visit(node, isLoopHead(workList, node, preds));
+            }
+            int i = 0;
+            for (Node pred : preds) {
+                Fact predOut = result.getOutFact(pred);
+                // unwritten facts are bottom, i.e., the identity of meet
+                if (predOut != null &&
+                        versions.needMeet(pred, node, i, preds.size())) {
+                    in = getInFactForWrite(cfg, result, node);
+                    analysis.meetInto(predOut, in);
+                    if (trace != null) {
+                        trace.meet();
+                    }
+                }
+                ++i;
+            }
+            Fact output = result.getOutFact(node);
+            boolean changed;
+            if (output != null) {
+                changed = analysis.transferNode(
+                        node, in != null ? in : bottom, output);
+            } else {
+                if (scratch == null) {
+                    scratch = analysis.newInitialFact(cfg);
                 }
-                hasChanged = analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
-                if (hasChanged) {
-                    newWorkList.addAll(cfg.getSuccsOf(node));
+                output = scratch;
+                changed = analysis.transferNode(
+                        node, in != null ? in : bottom, output);
+                if (changed) {
+                    result.setOutFact(node, output);
+                    scratch = null;
                 }
             }
-            oldWorkList.clear();
+            if (trace != null) {
+                trace.transfer(output, changed);
+            }
+            if (changed) {
+                versions.update(node);
+                cfg.getSuccsOf(node).forEach(workList::add);
+            }
         }
+        createInitialFactsOnQuery(cfg, result);
+        finishTrace(trace);
     }
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        Set<Node> newWorkList = Sets.newHybridSet(cfg.getNodes());
-        Set<Node> oldWorkList = Sets.newHybridSet(Collections.emptySet());
-        Set<Node> tmpWorkList;
-        while (!newWorkList.isEmpty()) {
-            tmpWorkList = oldWorkList;
-            oldWorkList = newWorkList;
-            newWorkList = tmpWorkList;
-            boolean hasChanged;
-            for (Node node : oldWorkList) {
-                hasChanged = false;
-                if (cfg.isEntry(node) || cfg.isExit(node)) continue;
-                for (Node sucNode : cfg.getSuccsOf(node)) {
-                    analysis.meetInto(result.getInFact(sucNode), result.getOutFact(node));
+        PriorityWorkList<Node> workList = new PriorityWorkList<>(cfg, false);
+        SolverProfiler.Trace trace = newTrace(cfg);
+        FactVersions<Node> versions = new FactVersions<>(
+                cfg.getNumberOfNodes(), workList::indexOf);
+        // shared by the nodes whose out facts have not been written
+        Fact bottom = analysis.newInitialFact(cfg);
+        // output of the transfers of the nodes without in facts,
+        // which is stored as in fact only if the transfer changes it
+        Fact scratch = null;
+        workList.addAll();
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            if (cfg.isEntry(node) || cfg.isExit(node)) continue;
+            Fact out = result.getOutFact(node);
+            Set<Node> succs = cfg.getSuccsOf(node);
+            if (trace != null) {
+                trace.visit(node, isLoopHead(workList, node, succs));
+            }
+            int i = 0;
+            for (Node succ : succs) {
+                Fact succIn = result.getInFact(succ);
+                // unwritten facts are bottom, i.e., the identity of meet
+                if (succIn != null &&
+                        versions.needMeet(succ, node, i, succs.size())) {
+                    out = getOutFactForWrite(cfg, result, node);
+                    analysis.meetInto(succIn, out);
+                    if (trace != null) {
+                        trace.meet();
+                    }
+                }
+                ++i;
+            }
+            Fact output = result.getInFact(node);
+            boolean changed;
+            if (output != null) {
+                changed = analysis.transferNode(
+                        node, output, out != null ? out : bottom);
+            } else {
+                if (scratch == null) {
+                    scratch = analysis.newInitialFact(cfg);
                 }
-                hasChanged = analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
-                if (hasChanged) {
-                    newWorkList.addAll(cfg.getPredsOf(node));
+                output = scratch;
+                changed = analysis.transferNode(
+                        node, output, out != null ? out : bottom);
+                if (changed) {
+                    result.setInFact(node, output);
+                    scratch = null;
                 }
             }
-            oldWorkList.clear();
+            if (trace != null) {
+                trace.transfer(output, changed);
+            }
+            if (changed) {
+                versions.update(node);
+                cfg.getPredsOf(node).forEach(workList::add);
+            }
+        }
+        createInitialFactsOnQuery(cfg, result);
+        finishTrace(trace);
+    }
+
+    /**
+     * @return true if node is the head of a loop, i.e., some of its
+     * sources (predecessors in forward analysis, successors in backward
+     * analysis) does not come before it in the work-list order.
+     */
+    static <Node> boolean isLoopHead(
+            PriorityWorkList<Node> workList, Node node, Set<Node> sources) {
+        int index = workList.indexOf(node);
+        for (Node source : sources) {
+            if (workList.indexOf(source) >= index) {
+                return true;
+            }
         }
+        return false;
     }
 }
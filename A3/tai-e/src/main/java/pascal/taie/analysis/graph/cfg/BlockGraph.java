@@ -0,0 +1,208 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Basic-block view of a CFG. The entry and exit nodes of the CFG are
+ * always in blocks of their own.
+ *
+ * @param <N> type of CFG nodes
+ */
+public class BlockGraph<N> implements Graph<BasicBlock<N>> {
+
+    private final CFG<N> cfg;
+
+    private final List<BasicBlock<N>> blocks = new ArrayList<>();
+
+    /**
+     * CFG node -> block containing the node.
+     */
+    private final Map<N, BasicBlock<N>> node2Block;
+
+    /**
+     * CFG node -> position of the node in its block.
+     */
+    private final Map<N, Integer> node2Position;
+
+    private final List<Set<BasicBlock<N>>> preds = new ArrayList<>();
+
+    private final List<Set<BasicBlock<N>>> succs = new ArrayList<>();
+
+    private final Set<BasicBlock<N>> blockSet;
+
+    public BlockGraph(CFG<N> cfg) {
+        this.cfg = cfg;
+        node2Block = Maps.newMap(cfg.getNumberOfNodes());
+        node2Position = Maps.newMap(cfg.getNumberOfNodes());
+        for (N node : cfg) {
+            if (isLeader(node)) {
+                addBlock(node);
+            }
+        }
+        // nodes that are not reached from any leader, e.g., the nodes
+        // of an unreachable cycle, start blocks of their own
+        for (N node : cfg) {
+            if (!node2Block.containsKey(node)) {
+                addBlock(node);
+            }
+        }
+        for (BasicBlock<N> block : blocks) {
+            for (N succ : cfg.getSuccsOf(block.getLast())) {
+                BasicBlock<N> succBlock = node2Block.get(succ);
+                succs.get(block.getIndex()).add(succBlock);
+                preds.get(succBlock.getIndex()).add(block);
+            }
+        }
+        blockSet = Collections.unmodifiableSet(new LinkedHashSet<>(blocks));
+    }
+
+    /**
+     * @return true if node starts a basic block.
+     */
+    private boolean isLeader(N node) {
+        if (cfg.isEntry(node) || cfg.isExit(node)) {
+            return true;
+        }
+        Set<N> nodePreds = cfg.getPredsOf(node);
+        if (nodePreds.size() != 1) {
+            return true;
+        }
+        N pred = nodePreds.iterator().next();
+        return cfg.isEntry(pred) || cfg.getSuccsOf(pred).size() != 1;
+    }
+
+    /**
+     * Adds the block started by given leader.
+     */
+    private void addBlock(N leader) {
+        List<N> nodes = new ArrayList<>();
+        N node = leader;
+        while (true) {
+            nodes.add(node);
+            if (cfg.isEntry(node) || cfg.isExit(node)) {
+                break;
+            }
+            Set<N> nodeSuccs = cfg.getSuccsOf(node);
+            if (nodeSuccs.size() != 1) {
+                break;
+            }
+            N succ = nodeSuccs.iterator().next();
+            if (isLeader(succ) || node2Block.containsKey(succ) || succ == leader) {
+                break;
+            }
+            node = succ;
+        }
+        BasicBlock<N> block = new BasicBlock<>(blocks.size(), nodes);
+        blocks.add(block);
+        preds.add(Sets.newHybridSet());
+        succs.add(Sets.newHybridSet());
+        for (int i = 0; i < nodes.size(); ++i) {
+            node2Block.put(nodes.get(i), block);
+            node2Position.put(nodes.get(i), i);
+        }
+    }
+
+    public CFG<N> getCFG() {
+        return cfg;
+    }
+
+    /**
+     * @return the block containing given CFG node.
+     */
+    public BasicBlock<N> getBlockOf(N node) {
+        return node2Block.get(node);
+    }
+
+    /**
+     * @return position of given CFG node in its block, i.e., the index
+     * of the node in {@link BasicBlock#getNodes()}.
+     */
+    public int getPositionOf(N node) {
+        return node2Position.get(node);
+    }
+
+    public BasicBlock<N> getEntry() {
+        return node2Block.get(cfg.getEntry());
+    }
+
+    public BasicBlock<N> getExit() {
+        return node2Block.get(cfg.getExit());
+    }
+
+    public boolean isEntry(BasicBlock<N> block) {
+        return block == getEntry();
+    }
+
+    public boolean isExit(BasicBlock<N> block) {
+        return block == getExit();
+    }
+
+    /**
+     * @return all blocks, indexed by {@link BasicBlock#getIndex()}.
+     */
+    public List<BasicBlock<N>> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    @Override
+    public boolean hasNode(BasicBlock<N> block) {
+        return block.getIndex() < blocks.size() &&
+                blocks.get(block.getIndex()) == block;
+    }
+
+    @Override
+    public boolean hasEdge(BasicBlock<N> source, BasicBlock<N> target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getPredsOf(BasicBlock<N> block) {
+        return Collections.unmodifiableSet(preds.get(block.getIndex()));
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getSuccsOf(BasicBlock<N> block) {
+        return Collections.unmodifiableSet(succs.get(block.getIndex()));
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getNodes() {
+        return blockSet;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return blocks.size();
+    }
+}
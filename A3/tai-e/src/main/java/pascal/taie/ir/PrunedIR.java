@@ -0,0 +1,173 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.ir;
+
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import javax.annotation.Nullable;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * View of an IR without a set of removed statements, e.g., dead code.
+ * <p>
+ * The remaining statements keep their indexes in the original IR,
+ * i.e., {@link Stmt#getIndex()} of a statement may differ from its
+ * position in {@link #getStmts()}, and {@link #getStmt(int)} looks up
+ * the statements by their indexes, as the original IR does. The targets
+ * of the jumps may be removed statements. Thus, this view is meant for the analyses which
+ * only iterate over the statements, such as call graph construction and
+ * pointer analysis, and not for building control-flow graphs.
+ * <p>
+ * The analysis results are shared with the original IR.
+ */
+public class PrunedIR implements IR {
+
+    private final IR ir;
+
+    private final List<Stmt> stmts;
+
+    /**
+     * Indexes of the remaining statements.
+     */
+    private final BitSet remaining = new BitSet();
+
+    public PrunedIR(IR ir, Set<Stmt> removed) {
+        this.ir = ir;
+        this.stmts = ir.stmts()
+                .filter(stmt -> !removed.contains(stmt))
+                .toList();
+        stmts.forEach(stmt -> remaining.set(stmt.getIndex()));
+    }
+
+    /**
+     * @return the original IR.
+     */
+    public IR getOriginal() {
+        return ir;
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return ir.getMethod();
+    }
+
+    @Nullable
+    @Override
+    public Var getThis() {
+        return ir.getThis();
+    }
+
+    @Override
+    public List<Var> getParams() {
+        return ir.getParams();
+    }
+
+    @Override
+    public Var getParam(int i) {
+        return ir.getParam(i);
+    }
+
+    @Override
+    public List<Var> getReturnVars() {
+        return ir.getReturnVars();
+    }
+
+    @Override
+    public Var getVar(int i) {
+        return ir.getVar(i);
+    }
+
+    @Override
+    public List<Var> getVars() {
+        return ir.getVars();
+    }
+
+    /**
+     * @return the {@link Stmt} whose {@link Stmt#getIndex()} is i,
+     * i.e., the i-th statement of the original IR.
+     * @throws IllegalArgumentException if the statement has been removed
+     */
+    @Override
+    public Stmt getStmt(int i) {
+        if (!remaining.get(i)) {
+            throw new IllegalArgumentException("Stmt " + i + " of " +
+                    getMethod() + " has been removed");
+        }
+        return ir.getStmt(i);
+    }
+
+    /**
+     * @return the remaining statements, in the order of the original IR.
+     */
+    @Override
+    public List<Stmt> getStmts() {
+        return stmts;
+    }
+
+    @Override
+    public List<ExceptionEntry> getExceptionEntries() {
+        return ir.getExceptionEntries();
+    }
+
+    @Override
+    public <R> void storeResult(String key, R value) {
+        ir.storeResult(key, value);
+    }
+
+    @Override
+    public <R> R getResult(String key) {
+        return ir.getResult(key);
+    }
+
+    @Override
+    public <R> R getResult(String key, R defaultResult) {
+        return ir.getResult(key, defaultResult);
+    }
+
+    @Override
+    public <R> R getResult(String key, Supplier<R> supplier) {
+        return ir.getResult(key, supplier);
+    }
+
+    @Override
+    public Collection<String> getKeys() {
+        return ir.getKeys();
+    }
+
+    @Override
+    public void clearResult(String key) {
+        ir.clearResult(key);
+    }
+
+    @Override
+    public void clearAll() {
+        ir.clearAll();
+    }
+}
@@ -0,0 +1,621 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Persistent (immutable) map implemented as a hash array mapped trie.
+ * Each update returns a new map, which shares all unchanged sub-tries
+ * with the original map, thus taking a snapshot of a map is free, and
+ * an update takes O(log n) time and space.
+ * <p>
+ * The shape of the trie only depends on the mappings in the map, so that
+ * equality checking and merging can skip the sub-tries shared by two maps.
+ * This map does not permit null keys or values.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public final class PersistentMap<K, V> {
+
+    /**
+     * Number of hash bits consumed by each level of the trie.
+     */
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    /**
+     * Root of the trie, which is null (for empty map), a {@link Leaf},
+     * a {@link Collision}, or a {@link Branch}.
+     */
+    private final Object root;
+
+    /**
+     * Number of mappings in this map, or -1 if it has not been computed.
+     */
+    private int size;
+
+    private PersistentMap(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the empty persistent map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * @return a persistent map with the same mappings as given map.
+     */
+    public static <K, V> PersistentMap<K, V> of(Map<K, V> map) {
+        PersistentMap<K, V> result = empty();
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            result = result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * @return the value to which given key is mapped,
+     * or null if this map contains no mapping for the key.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int hash = hash(key);
+        Object node = root;
+        int shift = 0;
+        while (node != null) {
+            if (node instanceof Leaf<?, ?> leaf) {
+                return leaf.hash == hash && leaf.key.equals(key) ?
+                        (V) leaf.value : null;
+            } else if (node instanceof Collision collision) {
+                return collision.hash == hash ?
+                        (V) collision.get(key) : null;
+            } else {
+                Branch branch = (Branch) node;
+                int bit = bit(hash, shift);
+                if ((branch.bitmap & bit) == 0) {
+                    return null;
+                }
+                node = branch.children[branch.index(bit)];
+                shift += BITS;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if this map contains a mapping for given key.
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return a map with the mappings of this map and the mapping
+     * from key to value. If this map already maps key to value,
+     * then returns this map.
+     */
+    public PersistentMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(value);
+        V oldValue = get(key);
+        if (value.equals(oldValue)) {
+            return this;
+        }
+        Object newRoot = put(root, 0, new Leaf<>(hash(key), key, value));
+        return new PersistentMap<>(newRoot,
+                size < 0 || oldValue != null ? size : size + 1);
+    }
+
+    /**
+     * @return a map with the mappings of this map except the one for
+     * given key. If this map contains no mapping for key, then returns
+     * this map.
+     */
+    public PersistentMap<K, V> remove(Object key) {
+        if (get(key) == null) {
+            return this;
+        }
+        Object newRoot = remove(root, 0, hash(key), key);
+        return newRoot == null ? empty() :
+                new PersistentMap<>(newRoot, size < 0 ? size : size - 1);
+    }
+
+    /**
+     * @return a map with the mappings of this map and the ones of given
+     * map. The mappings of given map override the ones of this map for
+     * the same keys. If the result equals this map, then returns this map.
+     */
+    public PersistentMap<K, V> putAll(PersistentMap<K, V> map) {
+        if (root == map.root || map.root == null) {
+            return this;
+        }
+        if (root == null) {
+            return map;
+        }
+        Object newRoot = putAll(root, map.root, 0);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, -1);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public int size() {
+        if (size < 0) {
+            int[] count = { 0 };
+            forEach(root, leaf -> ++count[0]);
+            size = count[0];
+        }
+        return size;
+    }
+
+    /**
+     * Performs the given action for each mapping in this map.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        PersistentMap.<K, V>forEach(root,
+                leaf -> action.accept(leaf.key, leaf.value));
+    }
+
+    /**
+     * @return all entries (key-value mappings) in this map.
+     */
+    public Stream<Map.Entry<K, V>> entries() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        PersistentMap.<K, V>forEach(root, entries::add);
+        return entries.stream();
+    }
+
+    /**
+     * @return a {@link Set} of the keys contained in this map.
+     */
+    public Set<K> keySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public Iterator<K> iterator() {
+                Iterator<Leaf<K, V>> iterator = leaves().iterator();
+                return new Iterator<>() {
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public K next() {
+                        return iterator.next().key;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PersistentMap.this.size();
+            }
+        };
+    }
+
+    private List<Leaf<K, V>> leaves() {
+        List<Leaf<K, V>> leaves = new ArrayList<>();
+        PersistentMap.<K, V>forEach(root, leaves::add);
+        return leaves;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PersistentMap<?, ?> that)) {
+            return false;
+        }
+        return equals(root, that.root);
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = { 0 };
+        forEach(root, leaf -> hash[0] += leaf.hashCode());
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        return CollectionUtils.toString(leaves());
+    }
+
+    // ---------- trie operations ----------
+    // In the following methods, node is a slot at given level (shift)
+    // of the trie, i.e., if it is a branch, then it is indexed by
+    // the hash bits starting from shift.
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int fragment(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << fragment(hash, shift);
+    }
+
+    private static int hashOf(Object item) {
+        return item instanceof Leaf<?, ?> leaf ?
+                leaf.hash : ((Collision) item).hash;
+    }
+
+    private static Object put(Object node, int shift, Leaf<?, ?> leaf) {
+        if (node == null) {
+            return leaf;
+        } else if (node instanceof Leaf<?, ?> old) {
+            if (old.hash == leaf.hash && old.key.equals(leaf.key)) {
+                return old.value.equals(leaf.value) ? old : leaf;
+            }
+            return merge(shift, old, leaf);
+        } else if (node instanceof Collision collision) {
+            return collision.hash == leaf.hash ?
+                    collision.put(leaf) : merge(shift, collision, leaf);
+        } else {
+            Branch branch = (Branch) node;
+            int bit = bit(leaf.hash, shift);
+            if ((branch.bitmap & bit) == 0) {
+                return branch.insert(bit, leaf);
+            }
+            int i = branch.index(bit);
+            Object child = branch.children[i];
+            Object newChild = put(child, shift + BITS, leaf);
+            return newChild == child ? branch : branch.replace(i, newChild);
+        }
+    }
+
+    /**
+     * Merges a leaf or collision and a leaf which have different keys
+     * into the same slot.
+     */
+    private static Object merge(int shift, Object item, Leaf<?, ?> leaf) {
+        int hash = hashOf(item);
+        if (hash == leaf.hash) {
+            return new Collision(hash, new Leaf<?, ?>[]{ (Leaf<?, ?>) item, leaf });
+        }
+        int frag1 = fragment(hash, shift);
+        int frag2 = fragment(leaf.hash, shift);
+        if (frag1 == frag2) {
+            return new Branch(1 << frag1,
+                    new Object[]{ merge(shift + BITS, item, leaf) });
+        }
+        return new Branch((1 << frag1) | (1 << frag2), frag1 < frag2 ?
+                new Object[]{ item, leaf } : new Object[]{ leaf, item });
+    }
+
+    private static Object remove(Object node, int shift, int hash, Object key) {
+        if (node == null) {
+            return null;
+        } else if (node instanceof Leaf<?, ?> leaf) {
+            return leaf.hash == hash && leaf.key.equals(key) ? null : leaf;
+        } else if (node instanceof Collision collision) {
+            return collision.hash == hash ? collision.remove(key) : collision;
+        } else {
+            Branch branch = (Branch) node;
+            int bit = bit(hash, shift);
+            if ((branch.bitmap & bit) == 0) {
+                return branch;
+            }
+            int i = branch.index(bit);
+            Object child = branch.children[i];
+            Object newChild = remove(child, shift + BITS, hash, key);
+            if (newChild == child) {
+                return branch;
+            } else if (newChild == null) {
+                return branch.children.length == 1 ?
+                        null : branch.delete(bit, i).collapse();
+            } else {
+                return branch.replace(i, newChild).collapse();
+            }
+        }
+    }
+
+    /**
+     * Merges the mappings of node2 into node1, where node2 overrides
+     * node1 for the same keys.
+     */
+    private static Object putAll(Object node1, Object node2, int shift) {
+        if (node1 == node2 || node2 == null) {
+            return node1;
+        } else if (node1 == null) {
+            return node2;
+        } else if (node1 instanceof Branch branch1
+                && node2 instanceof Branch branch2) {
+            Branch result = branch1;
+            int bitmap = branch2.bitmap;
+            for (Object child2 : branch2.children) {
+                int bit = Integer.lowestOneBit(bitmap);
+                bitmap ^= bit;
+                if ((result.bitmap & bit) == 0) {
+                    result = result.insert(bit, child2);
+                } else {
+                    int i = result.index(bit);
+                    Object child1 = result.children[i];
+                    Object newChild = putAll(child1, child2, shift + BITS);
+                    if (newChild != child1) {
+                        result = result.replace(i, newChild);
+                    }
+                }
+            }
+            return result;
+        } else {
+            Object[] result = { node1 };
+            forEach(node2, leaf -> result[0] = put(result[0], shift, leaf));
+            return result[0];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> void forEach(Object node, Consumer<Leaf<K, V>> action) {
+        if (node == null) {
+            return;
+        }
+        if (node instanceof Leaf<?, ?> leaf) {
+            action.accept((Leaf<K, V>) leaf);
+        } else if (node instanceof Collision collision) {
+            for (Leaf<?, ?> leaf : collision.leaves) {
+                action.accept((Leaf<K, V>) leaf);
+            }
+        } else {
+            for (Object child : ((Branch) node).children) {
+                forEach(child, action);
+            }
+        }
+    }
+
+    private static boolean equals(Object node1, Object node2) {
+        if (node1 == node2) {
+            return true;
+        } else if (node1 instanceof Leaf<?, ?> leaf1
+                && node2 instanceof Leaf<?, ?> leaf2) {
+            return leaf1.equals(leaf2);
+        } else if (node1 instanceof Collision collision1
+                && node2 instanceof Collision collision2) {
+            if (collision1.hash != collision2.hash ||
+                    collision1.leaves.length != collision2.leaves.length) {
+                return false;
+            }
+            for (Leaf<?, ?> leaf : collision1.leaves) {
+                if (!leaf.value.equals(collision2.get(leaf.key))) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (node1 instanceof Branch branch1
+                && node2 instanceof Branch branch2) {
+            if (branch1.bitmap != branch2.bitmap) {
+                return false;
+            }
+            for (int i = 0; i < branch1.children.length; ++i) {
+                if (!equals(branch1.children[i], branch2.children[i])) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * A key-value mapping.
+     */
+    private static final class Leaf<K, V> implements Map.Entry<K, V> {
+
+        private final int hash;
+
+        private final K key;
+
+        private final V value;
+
+        private Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = Objects.requireNonNull(key);
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Map.Entry<?, ?> that)) {
+                return false;
+            }
+            return key.equals(that.getKey()) && value.equals(that.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * The mappings whose keys have the same hash.
+     */
+    private static final class Collision {
+
+        private final int hash;
+
+        private final Leaf<?, ?>[] leaves;
+
+        private Collision(int hash, Leaf<?, ?>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < leaves.length; ++i) {
+                if (leaves[i].key.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Object get(Object key) {
+            int i = indexOf(key);
+            return i >= 0 ? leaves[i].value : null;
+        }
+
+        private Collision put(Leaf<?, ?> leaf) {
+            int i = indexOf(leaf.key);
+            Leaf<?, ?>[] newLeaves;
+            if (i >= 0) {
+                if (leaves[i].value.equals(leaf.value)) {
+                    return this;
+                }
+                newLeaves = leaves.clone();
+                newLeaves[i] = leaf;
+            } else {
+                newLeaves = new Leaf<?, ?>[leaves.length + 1];
+                System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+                newLeaves[leaves.length] = leaf;
+            }
+            return new Collision(hash, newLeaves);
+        }
+
+        /**
+         * @return this collision if it does not contain key, the remaining
+         * leaf if only one leaf is left, otherwise a new collision.
+         */
+        private Object remove(Object key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            if (leaves.length == 2) {
+                return leaves[1 - i];
+            }
+            Leaf<?, ?>[] newLeaves = new Leaf<?, ?>[leaves.length - 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, i);
+            System.arraycopy(leaves, i + 1, newLeaves, i, newLeaves.length - i);
+            return new Collision(hash, newLeaves);
+        }
+    }
+
+    /**
+     * Inner node of the trie, whose children are compressed by a bitmap.
+     */
+    private static final class Branch {
+
+        private final int bitmap;
+
+        private final Object[] children;
+
+        private Branch(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        /**
+         * @return index of the child for given bit in {@link #children}.
+         */
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Branch insert(int bit, Object child) {
+            int i = index(bit);
+            Object[] newChildren = new Object[children.length + 1];
+            System.arraycopy(children, 0, newChildren, 0, i);
+            newChildren[i] = child;
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            return new Branch(bitmap | bit, newChildren);
+        }
+
+        private Branch replace(int i, Object child) {
+            Object[] newChildren = children.clone();
+            newChildren[i] = child;
+            return new Branch(bitmap, newChildren);
+        }
+
+        private Branch delete(int bit, int i) {
+            Object[] newChildren = new Object[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(children, i + 1, newChildren, i, newChildren.length - i);
+            return new Branch(bitmap ^ bit, newChildren);
+        }
+
+        /**
+         * Keeps the trie canonical: a branch with a single leaf or
+         * collision is replaced by that child.
+         */
+        private Object collapse() {
+            return children.length == 1 && !(children[0] instanceof Branch) ?
+                    children[0] : this;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.cache.ResultCache;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRPrinter;
+import pascal.taie.ir.PrunedIR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests the clients of the results of dead code detection,
+ * i.e., pruning IR and caching results.
+ */
+public class DeadCodePruneTest {
+
+    @Test
+    public void testPrune() {
+        Tests.test("DeadAssignment", DeadCodeTest.CLASS_PATH,
+                DeadCodeDetection.ID, DeadCodeTest.DENSE);
+        boolean pruned = false;
+        for (JMethod method : getMethods()) {
+            IR ir = method.getIR();
+            Set<Stmt> deadCode = ir.getResult(DeadCodeDetection.ID);
+            IR prunedIR = DeadCodeDetection.prune(ir);
+            if (deadCode.isEmpty()) {
+                Assert.assertSame(ir, prunedIR);
+                continue;
+            }
+            pruned = true;
+            Assert.assertTrue(prunedIR instanceof PrunedIR);
+            Assert.assertEquals(ir.stmts().filter(s -> !deadCode.contains(s)).toList(),
+                    prunedIR.getStmts());
+            for (Stmt stmt : ir) {
+                if (deadCode.contains(stmt)) {
+                    try {
+                        prunedIR.getStmt(stmt.getIndex());
+                        Assert.fail("Removed " + stmt + " is returned");
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                } else {
+                    Assert.assertSame(stmt, prunedIR.getStmt(stmt.getIndex()));
+                }
+            }
+        }
+        Assert.assertTrue("No method of DeadAssignment is pruned", pruned);
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        Path cacheDir = Files.createTempDirectory("deadcode-cache");
+        String option = ResultCache.CACHE_DIR_OPTION + ":" + cacheDir;
+        Runnable test = () -> Tests.test("UnreachableIfBranch",
+                DeadCodeTest.CLASS_PATH,
+                DeadCodeDetection.ID, option,
+                "-a", "livevar=strongly:false;" + option,
+                "-a", "constprop=edge-refine:false;" + option);
+        test.run();
+        Map<String, List<String>> deadCode = getDeadCode();
+        List<Path> cacheFiles = listCacheFiles(cacheDir.resolve(DeadCodeDetection.ID));
+        Assert.assertEquals(getMethods().size(), cacheFiles.size());
+        Assert.assertFalse(listCacheFiles(cacheDir.resolve(ConstantPropagation.ID)).isEmpty());
+        // the second run loads all results from the cache, which gives
+        // the same dead code and leaves the cache files untouched
+        FileTime time = FileTime.fromMillis(1_000_000_000_000L);
+        for (Path file : cacheFiles) {
+            Files.setLastModifiedTime(file, time);
+        }
+        test.run();
+        Assert.assertEquals(deadCode, getDeadCode());
+        for (Path file : cacheFiles) {
+            Assert.assertEquals(time, Files.getLastModifiedTime(file));
+        }
+        // the cached results which fail to decode are computed again
+        for (Path file : cacheFiles) {
+            Files.write(file, List.of(Files.readAllLines(file).get(0), "corrupted"));
+        }
+        test.run();
+        Assert.assertEquals(deadCode, getDeadCode());
+        for (Path file : cacheFiles) {
+            Assert.assertNotEquals("corrupted", Files.readAllLines(file).get(1));
+        }
+    }
+
+    private static List<JMethod> getMethods() {
+        return World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .toList();
+    }
+
+    /**
+     * @return method -> its dead code detected in the last run.
+     */
+    private static Map<String, List<String>> getDeadCode() {
+        return getMethods().stream().collect(Collectors.toMap(
+                JMethod::toString,
+                m -> m.getIR().<Set<Stmt>>getResult(DeadCodeDetection.ID)
+                        .stream()
+                        .map(IRPrinter::toString)
+                        .toList()));
+    }
+
+    private static List<Path> listCacheFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".txt"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
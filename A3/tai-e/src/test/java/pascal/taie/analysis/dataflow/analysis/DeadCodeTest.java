@@ -23,39 +23,96 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import pascal.taie.analysis.Tests;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs dead code detection on each test case under each configuration
+ * of the solvers and the mode of dead code detection, all of which
+ * must detect the same dead code.
+ */
+@RunWith(Parameterized.class)
 public class DeadCodeTest {
 
-    void testDCD(String inputClass) {
-        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
-                DeadCodeDetection.ID,
+    static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    /**
+     * Options for the default configuration, where dead code detection
+     * uses the results of constprop and livevar solved by work-list solver.
+     */
+    static final String[] DENSE = {
+            "-a", "livevar=strongly:false",
+            "-a", "constprop=edge-refine:false",
+    };
+
+    /**
+     * Test cases whose dead code is the same under all configurations.
+     */
+    private static final List<String> INPUT_CLASSES = List.of(
+            "ControlFlowUnreachable",
+            "UnreachableIfBranch",
+            "UnreachableSwitchBranch",
+            "DeadAssignment",
+            "Loops",
+            "ReferenceBranch");
+
+    /**
+     * Configuration name -> options of the configuration.
+     */
+    private static final Map<String, String[]> CONFIGS = new LinkedHashMap<>();
+
+    static {
+        CONFIGS.put("dense", DENSE);
+        CONFIGS.put("sparse", new String[]{
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;sparse:true",
+        });
+        CONFIGS.put("fused", new String[]{ "fused:true" });
+        CONFIGS.put("block", new String[]{
+                "-a", "livevar=strongly:false;solver:block",
+                "-a", "constprop=edge-refine:false;solver:block",
+        });
+        // the parallel threshold is 0, so that all CFGs are solved by
+        // the parallel solving of SCCs instead of the fallback solver
+        CONFIGS.put("scc", new String[]{
+                "-a", "livevar=strongly:false;solver:scc;parallel-threshold:0",
+                "-a", "constprop=edge-refine:false;solver:scc;parallel-threshold:0",
+        });
+        CONFIGS.put("interval", new String[]{
+                "interval:true",
                 "-a", "livevar=strongly:false",
-                "-a", "constprop=edge-refine:false");
+                "-a", "constprop=edge-refine:false",
+        });
     }
 
-    @Test
-    public void testControlFlowUnreachable() {
-        testDCD("ControlFlowUnreachable");
+    @Parameterized.Parameters(name = "{0} ({1})")
+    public static List<Object[]> data() {
+        List<Object[]> data = new ArrayList<>();
+        CONFIGS.forEach((config, opts) -> INPUT_CLASSES.forEach(
+                inputClass -> data.add(new Object[]{ inputClass, config, opts })));
+        // the unreachable branches of IntervalBranch
+        // can only be detected by interval analysis
+        data.add(new Object[]{ "IntervalBranch", "interval", CONFIGS.get("interval") });
+        return data;
     }
 
-    @Test
-    public void testUnreachableIfBranch() {
-        testDCD("UnreachableIfBranch");
-    }
+    @Parameterized.Parameter(0)
+    public String inputClass;
 
-    @Test
-    public void testUnreachableSwitchBranch() {
-        testDCD("UnreachableSwitchBranch");
-    }
+    @Parameterized.Parameter(1)
+    public String config;
 
-    @Test
-    public void testDeadAssignment() {
-        testDCD("DeadAssignment");
-    }
+    @Parameterized.Parameter(2)
+    public String[] opts;
 
     @Test
-    public void testLoops() {
-        testDCD("Loops");
+    public void testDCD() {
+        Tests.test(inputClass, CLASS_PATH, DeadCodeDetection.ID, opts);
     }
 }
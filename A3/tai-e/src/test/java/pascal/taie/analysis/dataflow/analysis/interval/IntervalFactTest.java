@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.interval;
+
+import org.junit.Test;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntervalFactTest {
+
+    private final Var a = new Var(null, "a", PrimitiveType.INT, 0);
+
+    private final Var b = new Var(null, "b", PrimitiveType.INT, 1);
+
+    /**
+     * Each kind of change of either fact must invalidate the check of
+     * unchanged facts in copyFrom().
+     */
+    @Test
+    public void testCopyFromVersions() {
+        IntervalFact in = new IntervalFact();
+        IntervalFact out = new IntervalFact();
+        assertFalse(out.copyFrom(in));
+        in.setReachable();
+        assertTrue(out.copyFrom(in));
+        assertFalse(out.copyFrom(in));
+
+        in.update(a, Interval.of(0, 5));
+        assertTrue(out.copyFrom(in));
+        assertFalse(out.copyFrom(in));
+        assertEquals(in, out);
+
+        out.update(a, Interval.getBottom());
+        assertTrue(out.copyFrom(in));
+        assertEquals(Interval.of(0, 5), out.get(a));
+
+        IntervalFact other = new IntervalFact();
+        other.setReachable();
+        other.update(b, Interval.ofConstant(1));
+        assertTrue(out.join(other));
+        assertTrue(out.copyFrom(in));
+        assertEquals(in, out);
+
+        IntervalFact wider = in.copy();
+        wider.update(a, Interval.of(0, 6));
+        out.copyFrom(wider);
+        out.widen(in);
+        assertEquals(Interval.of(0, Integer.MAX_VALUE), out.get(a));
+        assertTrue(out.copyFrom(wider));
+        assertEquals(Interval.of(0, 6), out.get(a));
+
+        out.setUnreachable();
+        assertTrue(out.copyFrom(wider));
+        assertEquals(wider, out);
+        assertFalse(out.copyFrom(wider));
+    }
+}
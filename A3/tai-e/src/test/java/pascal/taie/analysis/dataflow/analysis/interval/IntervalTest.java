@@ -0,0 +1,93 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.interval;
+
+import org.junit.Test;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Integer.MIN_VALUE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the operations of {@link Interval} at the bounds of int,
+ * where the results must contain the wrapped-around values of Java int.
+ */
+public class IntervalTest {
+
+    private static Interval of(int lower, int upper) {
+        return Interval.of(lower, upper);
+    }
+
+    private static Interval constant(int value) {
+        return Interval.ofConstant(value);
+    }
+
+    @Test
+    public void testDivOverflow() {
+        // MIN_VALUE / -1 overflows to MIN_VALUE
+        assertTrue(constant(MIN_VALUE).div(constant(-1)).isTop());
+        assertTrue(constant(MIN_VALUE).div(of(-1, 1)).isTop());
+        assertEquals(of(-MAX_VALUE, MAX_VALUE),
+                of(MIN_VALUE + 1, MAX_VALUE).div(constant(-1)));
+        assertEquals(constant(MIN_VALUE / 2),
+                constant(MIN_VALUE).div(constant(2)));
+    }
+
+    @Test
+    public void testDivByZero() {
+        assertTrue(of(1, 10).div(constant(0)).isBottom());
+        // zero in the divisor is excluded
+        assertEquals(of(2, 20), of(10, 20).div(of(0, 5)));
+    }
+
+    @Test
+    public void testRemOverflow() {
+        // MIN_VALUE % -1 is 0, and x % MIN_VALUE is x unless x is MIN_VALUE
+        assertEquals(constant(0), constant(MIN_VALUE).rem(constant(-1)));
+        assertEquals(of(MIN_VALUE + 1, MAX_VALUE),
+                Interval.getTop().rem(constant(MIN_VALUE)));
+        assertEquals(of(0, MAX_VALUE), constant(MAX_VALUE).rem(constant(MIN_VALUE)));
+        assertEquals(of(-9, 9), Interval.getTop().rem(constant(10)));
+        assertTrue(Interval.getTop().rem(constant(0)).isBottom());
+    }
+
+    @Test
+    public void testWiden() {
+        assertEquals(of(0, MAX_VALUE), of(0, 5).widen(of(0, 6)));
+        assertEquals(of(MIN_VALUE, 5), of(0, 5).widen(of(-1, 5)));
+        assertTrue(of(MIN_VALUE, 5).widen(of(MIN_VALUE, 6)).isTop());
+        // infinite bounds are stable
+        assertEquals(of(0, MAX_VALUE), of(0, MAX_VALUE).widen(of(0, MAX_VALUE)));
+        assertEquals(of(1, 2), Interval.getBottom().widen(of(1, 2)));
+    }
+
+    @Test
+    public void testNarrow() {
+        assertEquals(of(0, 9), Interval.getTop().narrow(of(0, 9)));
+        assertEquals(of(0, 9), of(0, MAX_VALUE).narrow(of(0, 9)));
+        // finite bounds are kept
+        assertEquals(of(0, 5), of(0, 5).narrow(of(1, 3)));
+        assertTrue(of(0, MAX_VALUE).narrow(Interval.getBottom()).isBottom());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MapFactTest {
+
+    @Test
+    public void testCopyFromUnchanged() {
+        MapFact<String, Integer> in = new MapFact<>(Map.of("a", 1, "b", 2));
+        MapFact<String, Integer> out = new MapFact<>(Map.of("c", 3));
+        assertTrue(out.copyFrom(in));
+        // neither fact changed since the last copy
+        assertFalse(out.copyFrom(in));
+        // the source changed
+        in.update("d", 4);
+        assertTrue(out.copyFrom(in));
+        assertEquals(new MapFact<>(Map.of("a", 1, "b", 2, "c", 3, "d", 4)), out);
+        // the target changed and lost an entry of the source
+        out.remove("a");
+        assertTrue(out.copyFrom(in));
+        assertEquals(1, (int) out.get("a"));
+        // the target changed but still contains the source
+        out.update("e", 5);
+        assertFalse(out.copyFrom(in));
+        // another source with the same content
+        assertFalse(out.copyFrom(in.copy()));
+        in.update("a", 10);
+        assertTrue(out.copyFrom(in));
+        assertEquals(10, (int) out.get("a"));
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.interval.Interval;
+import pascal.taie.analysis.dataflow.analysis.interval.IntervalAnalysis;
+import pascal.taie.analysis.dataflow.analysis.interval.IntervalFact;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the iteration order, widening, narrowing and edge transfer of
+ * {@link WTOSolver} on the CFGs of hand-built IR, which can contain
+ * control flows (e.g., irreducible loops) that Java sources cannot.
+ */
+public class WTOSolverTest {
+
+    private final Var p = new Var(null, "p", PrimitiveType.INT, 0);
+
+    private final Var q = new Var(null, "q", PrimitiveType.INT, 1);
+
+    private static If newIf(ConditionExp.Op op, Var v1, Var v2) {
+        return new If(new ConditionExp(op, v1, v2));
+    }
+
+    /**
+     * Builds the IR of given statements, and stores its CFG in the IR.
+     */
+    private static IR buildIR(List<Var> vars, List<Var> params, List<Stmt> stmts) {
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+        }
+        IR ir = new DefaultIR(null, null, params, Set.of(),
+                vars, stmts, List.of());
+        CFG<Stmt> cfg = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID,
+                "exception", "none", "dump", false)).analyze(ir);
+        ir.storeResult(CFGBuilder.ID, cfg);
+        return ir;
+    }
+
+    /**
+     * Outer loop with an inner loop in its body:
+     * 0 (1 2 (3 4 5 6) 7 8) 9 in WTO.
+     */
+    private IR buildNestedLoops() {
+        List<Stmt> stmts = new ArrayList<>();
+        Nop outerHead = new Nop();
+        Nop innerHead = new Nop();
+        If outerExit = newIf(ConditionExp.Op.GT, p, q);
+        If innerExit = newIf(ConditionExp.Op.LT, p, q);
+        Goto innerBack = new Goto();
+        Goto outerBack = new Goto();
+        Nop innerAfter = new Nop();
+        Return ret = new Return();
+        stmts.add(new Nop());    // 0
+        stmts.add(outerHead);    // 1
+        stmts.add(outerExit);    // 2: if (p > q) goto 9
+        stmts.add(innerHead);    // 3
+        stmts.add(innerExit);    // 4: if (p < q) goto 7
+        stmts.add(new Nop());    // 5
+        stmts.add(innerBack);    // 6: goto 3
+        stmts.add(innerAfter);   // 7
+        stmts.add(outerBack);    // 8: goto 1
+        stmts.add(ret);          // 9
+        outerExit.setTarget(ret);
+        innerExit.setTarget(innerAfter);
+        innerBack.setTarget(innerHead);
+        outerBack.setTarget(outerHead);
+        return buildIR(List.of(p, q), List.of(p, q), stmts);
+    }
+
+    /**
+     * Loop {1, 2, 3} which is entered at both 1 and 2, i.e., neither
+     * of them dominates the other, so the loop is irreducible.
+     */
+    private IR buildIrreducibleLoop() {
+        List<Stmt> stmts = new ArrayList<>();
+        If entry = newIf(ConditionExp.Op.GT, p, q);
+        Nop a = new Nop();
+        Nop b = new Nop();
+        If back = newIf(ConditionExp.Op.LT, p, q);
+        stmts.add(entry);        // 0: if (p > q) goto 2
+        stmts.add(a);            // 1
+        stmts.add(b);            // 2
+        stmts.add(back);         // 3: if (p < q) goto 1
+        stmts.add(new Return()); // 4
+        entry.setTarget(b);
+        back.setTarget(a);
+        return buildIR(List.of(p, q), List.of(p, q), stmts);
+    }
+
+    @Test
+    public void testNestedLoopOrder() {
+        IR ir = buildNestedLoops();
+        PathAnalysis analysis = new PathAnalysis(true, false);
+        Solver.makeSolver(analysis, Solver.WTO).solve(ir.getResult(CFGBuilder.ID));
+        // each component is iterated until its head is stable, and
+        // the inner loop is stabilized in each outer iteration
+        assertEquals(List.of(0,
+                        1, 2, 3, 4, 5, 6, 3, 4, 5, 6, 3, 7, 8,
+                        1, 2, 3, 4, 5, 6, 3, 7, 8,
+                        1,
+                        9),
+                analysis.transfers);
+        assertSameResults(ir, true);
+    }
+
+    @Test
+    public void testIrreducibleLoop() {
+        IR ir = buildIrreducibleLoop();
+        assertSameResults(ir, true);
+        assertSameResults(ir, false);
+    }
+
+    @Test
+    public void testNestedLoopsBackward() {
+        assertSameResults(buildNestedLoops(), false);
+    }
+
+    /**
+     * Checks that the WTO solver reaches the same fixed point
+     * as the work-list solver on given IR.
+     */
+    private static void assertSameResults(IR ir, boolean isForward) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        PathAnalysis analysis = new PathAnalysis(isForward, false);
+        DataflowResult<Stmt, SetFact<Stmt>> expected =
+                Solver.makeSolver(analysis, Solver.WORKLIST).solve(cfg);
+        DataflowResult<Stmt, SetFact<Stmt>> given =
+                Solver.makeSolver(analysis, Solver.WTO).solve(cfg);
+        for (Stmt stmt : cfg) {
+            assertEquals("in fact of " + stmt,
+                    expected.getInFact(stmt), given.getInFact(stmt));
+            assertEquals("out fact of " + stmt,
+                    expected.getOutFact(stmt), given.getOutFact(stmt));
+        }
+    }
+
+    @Test
+    public void testWideningAndNarrowing() {
+        Var i = new Var(null, "i", PrimitiveType.INT, 0);
+        Var c = new Var(null, "c", PrimitiveType.INT, 1);
+        Var one = new Var(null, "one", PrimitiveType.INT, 2);
+        List<Stmt> stmts = new ArrayList<>();
+        Nop head = new Nop();
+        If exit = newIf(ConditionExp.Op.GE, i, c);
+        Goto back = new Goto();
+        Return ret = new Return(i);
+        stmts.add(new AssignLiteral(i, IntLiteral.get(0)));  // 0
+        stmts.add(new AssignLiteral(c, IntLiteral.get(10))); // 1
+        stmts.add(new AssignLiteral(one, IntLiteral.get(1))); // 2
+        stmts.add(head);                                     // 3
+        stmts.add(exit);                                     // 4: if (i >= c) goto 7
+        Binary inc = new Binary(i, new ArithmeticExp(ArithmeticExp.Op.ADD, i, one));
+        stmts.add(inc);                                      // 5: i = i + one
+        stmts.add(back);                                     // 6: goto 3
+        stmts.add(ret);                                      // 7: return i
+        exit.setTarget(ret);
+        back.setTarget(head);
+        IR ir = buildIR(List.of(i, c, one), List.of(), stmts);
+        DataflowResult<Stmt, IntervalFact> result =
+                new IntervalAnalysis(new AnalysisConfig(IntervalAnalysis.ID)).analyze(ir);
+        // widening makes the analysis terminate with i in [0, +inf) at
+        // the loop head, and narrowing recovers the bound guarded by
+        // the loop condition, which is applied by edge transfer
+        assertEquals(Interval.of(0, 10), result.getInFact(head).get(i));
+        assertEquals(Interval.of(0, 9), result.getInFact(inc).get(i));
+        assertEquals(Interval.of(1, 10), result.getOutFact(inc).get(i));
+        assertEquals(Interval.ofConstant(10), result.getInFact(ret).get(i));
+    }
+
+    @Test
+    public void testEdgeTransferIsOptIn() {
+        IR ir = buildNestedLoops();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        // the analysis needs transfer for the edges, but does not
+        // opt in edge transfer, so the WTO solver ignores it
+        PathAnalysis ignored = new PathAnalysis(true, false);
+        DataflowResult<Stmt, SetFact<Stmt>> worklist =
+                Solver.makeSolver(ignored, Solver.WORKLIST).solve(cfg);
+        DataflowResult<Stmt, SetFact<Stmt>> wto =
+                Solver.makeSolver(ignored, Solver.WTO).solve(cfg);
+        Stmt ret = ir.getStmt(9);
+        assertEquals(worklist.getInFact(ret), wto.getInFact(ret));
+        // the analysis opting in edge transfer must run on WTO solver,
+        // which clears the paths along the taken branches
+        PathAnalysis applied = new PathAnalysis(true, true);
+        try {
+            Solver.makeSolver(applied, Solver.WORKLIST);
+            fail("expected ConfigException");
+        } catch (ConfigException e) {
+            // expected
+        }
+        DataflowResult<Stmt, SetFact<Stmt>> refined =
+                Solver.makeSolver(applied, Solver.WTO).solve(cfg);
+        assertNotEquals(wto.getInFact(ret), refined.getInFact(ret));
+        assertEquals(new SetFact<>(), refined.getInFact(ret));
+    }
+
+    /**
+     * Analysis that collects the statements on the paths from (to)
+     * the entry (exit) to each statement in forward (backward) analysis,
+     * and records the order of node transfers. Its edge transfer clears
+     * the facts along the taken branches of if statements.
+     */
+    private static class PathAnalysis
+            implements DataflowAnalysis<Stmt, SetFact<Stmt>> {
+
+        private final boolean isForward;
+
+        private final boolean hasEdgeTransfer;
+
+        private final List<Integer> transfers = new ArrayList<>();
+
+        private PathAnalysis(boolean isForward, boolean hasEdgeTransfer) {
+            this.isForward = isForward;
+            this.hasEdgeTransfer = hasEdgeTransfer;
+        }
+
+        @Override
+        public boolean isForward() {
+            return isForward;
+        }
+
+        @Override
+        public SetFact<Stmt> newBoundaryFact(CFG<Stmt> cfg) {
+            return new SetFact<>();
+        }
+
+        @Override
+        public SetFact<Stmt> newInitialFact() {
+            return new SetFact<>();
+        }
+
+        @Override
+        public void meetInto(SetFact<Stmt> fact, SetFact<Stmt> target) {
+            target.union(fact);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<Stmt> in, SetFact<Stmt> out) {
+            transfers.add(stmt.getIndex());
+            SetFact<Stmt> source = isForward ? in : out;
+            SetFact<Stmt> target = isForward ? out : in;
+            SetFact<Stmt> result = source.copy();
+            result.add(stmt);
+            if (result.equals(target)) {
+                return false;
+            }
+            target.set(result);
+            return true;
+        }
+
+        @Override
+        public boolean hasEdgeTransfer() {
+            return hasEdgeTransfer;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return edge.getKind() == Edge.Kind.IF_TRUE;
+        }
+
+        @Override
+        public SetFact<Stmt> transferEdge(Edge<Stmt> edge, SetFact<Stmt> nodeFact) {
+            return new SetFact<>();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentMapTest {
+
+    /**
+     * Key with given hash code, so that tests can control the shape
+     * of the trie, e.g., make keys collide or share hash prefixes.
+     */
+    private record Key(String name, int hash) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static PersistentMap<Key, Integer> build(List<Key> keys) {
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+        for (Key key : keys) {
+            map = map.put(key, key.name().length());
+        }
+        return map;
+    }
+
+    private static void assertSameMappings(
+            Map<Key, Integer> expected, PersistentMap<Key, Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        expected.forEach((k, v) -> assertEquals(v, actual.get(k)));
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.keySet(), actual.keySet());
+    }
+
+    @Test
+    public void testCollidingKeys() {
+        Key a = new Key("a", 42), bb = new Key("bb", 42), ccc = new Key("ccc", 42);
+        PersistentMap<Key, Integer> map = build(List.of(a, bb, ccc));
+        assertEquals(3, map.size());
+        assertEquals(1, (int) map.get(a));
+        assertEquals(2, (int) map.get(bb));
+        assertEquals(3, (int) map.get(ccc));
+        assertNull(map.get(new Key("d", 42)));
+
+        PersistentMap<Key, Integer> updated = map.put(bb, 20);
+        assertEquals(20, (int) updated.get(bb));
+        assertEquals(2, (int) map.get(bb)); // the original map is unchanged
+        assertSame(map, map.put(bb, 2));
+        assertSame(map, map.remove(new Key("d", 42)));
+
+        PersistentMap<Key, Integer> removed = map.remove(bb);
+        assertEquals(2, removed.size());
+        assertNull(removed.get(bb));
+        assertEquals(build(List.of(a, ccc)), removed);
+        // a collision of one leaf is collapsed to the leaf
+        assertEquals(build(List.of(ccc)), removed.remove(a));
+        assertTrue(removed.remove(a).remove(ccc).isEmpty());
+    }
+
+    @Test
+    public void testRemoveCollapses() {
+        // keys sharing the lowest 10 hash bits are pushed down to
+        // the third level of the trie
+        Key a = new Key("a", 1), b = new Key("b", 1 | (1 << 10));
+        Key c = new Key("c", 1 | (1 << 11)), d = new Key("d", 2);
+        PersistentMap<Key, Integer> map = build(List.of(a, b, c, d));
+        assertEquals(4, map.size());
+        // removing b leaves a and c, which diverge at the same level
+        assertEquals(build(List.of(a, c, d)), map.remove(b));
+        // removing b and c must collapse the branches above a,
+        // so that the result has the same shape as {a, d}
+        PersistentMap<Key, Integer> collapsed = map.remove(b).remove(c);
+        assertEquals(build(List.of(a, d)), collapsed);
+        assertEquals(build(List.of(d, a)), map.remove(c).remove(b));
+        assertEquals(build(List.of(a)), collapsed.remove(d));
+        assertTrue(collapsed.remove(d).remove(a).isEmpty());
+        assertSame(PersistentMap.empty(), collapsed.remove(d).remove(a));
+        // colliding keys under a deep branch
+        Key a2 = new Key("a2", a.hash());
+        PersistentMap<Key, Integer> withCollision = map.put(a2, 2);
+        assertEquals(map, withCollision.remove(a2));
+        assertEquals(build(List.of(a2, b, c, d)), withCollision.remove(a));
+    }
+
+    @Test
+    public void testPutAllSharing() {
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            keys.add(new Key("k" + i, i * 7));
+        }
+        PersistentMap<Key, Integer> map = build(keys);
+        assertSame(map, map.putAll(PersistentMap.empty()));
+        assertSame(map, map.putAll(map));
+        assertSame(map, PersistentMap.<Key, Integer>empty().putAll(map));
+        // a map derived from map shares most sub-tries with it,
+        // and merging it back does not change map
+        PersistentMap<Key, Integer> derived = map.remove(keys.get(3))
+                .remove(keys.get(100));
+        assertSame(map, map.putAll(derived));
+        // an independently built map with the same mappings
+        // also leaves map unchanged
+        assertSame(map, map.putAll(build(keys.subList(50, 150))));
+
+        Key extra = new Key("extra", 3 * 7); // collides with k3
+        PersistentMap<Key, Integer> other = derived
+                .put(keys.get(5), 100)
+                .put(extra, 5);
+        PersistentMap<Key, Integer> merged = map.putAll(other);
+        Map<Key, Integer> expected = new HashMap<>();
+        map.forEach(expected::put);
+        other.forEach(expected::put);
+        assertSameMappings(expected, merged);
+        assertEquals(100, (int) merged.get(keys.get(5)));
+        assertEquals(PersistentMap.of(expected), merged);
+        assertEquals(2, (int) map.get(keys.get(5))); // map is unchanged
+    }
+
+    @Test
+    public void testCanonicity() {
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < 300; ++i) {
+            // small hash range, so that there are many collisions
+            // and shared hash prefixes
+            keys.add(new Key("k" + i, (i % 97) * 1025));
+        }
+        PersistentMap<Key, Integer> expected = build(keys);
+        Map<Key, Integer> hashMap = new HashMap<>();
+        expected.forEach(hashMap::put);
+        assertSameMappings(hashMap, expected);
+        Random random = new Random(37);
+        for (int round = 0; round < 10; ++round) {
+            List<Key> shuffled = new ArrayList<>(keys);
+            Collections.shuffle(shuffled, random);
+            PersistentMap<Key, Integer> map = build(shuffled);
+            assertEquals(expected, map);
+            assertEquals(expected.hashCode(), map.hashCode());
+            // inserting extra keys and removing them again
+            // restores the canonical shape
+            List<Key> extras = new ArrayList<>();
+            for (int i = 0; i < 50; ++i) {
+                extras.add(new Key("x" + i, random.nextInt(97) * 1025));
+            }
+            PersistentMap<Key, Integer> detour = map;
+            for (Key extra : extras) {
+                detour = detour.put(extra, 0);
+            }
+            assertNotEquals(expected, detour);
+            Collections.shuffle(extras, random);
+            for (Key extra : extras) {
+                detour = detour.remove(extra);
+            }
+            assertEquals(expected, detour);
+            assertEquals(expected.hashCode(), detour.hashCode());
+            assertEquals(expected.size(), detour.size());
+        }
+        // maps differing in one value are not equal
+        assertNotEquals(expected, expected.put(keys.get(0), -1));
+        assertEquals(expected, expected.put(keys.get(0), -1)
+                .put(keys.get(0), keys.get(0).name().length()));
+    }
+}
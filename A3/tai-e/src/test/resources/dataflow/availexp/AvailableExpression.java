@@ -0,0 +1,24 @@
+class AvailableExpression {
+
+    int branch(int a, int b, int p) {
+        int x = a + b;
+        int y = a * b;
+        if (p > 0) {
+            a = y;
+        } else {
+            y = x;
+        }
+        int z = a + b;
+        return z;
+    }
+
+    int loop(int a, int b, int n) {
+        int s = a * b;
+        for (int i = 0; i < n; i++) {
+            int t = a - b;
+            s = s + t;
+        }
+        int r = a * b;
+        return r;
+    }
+}
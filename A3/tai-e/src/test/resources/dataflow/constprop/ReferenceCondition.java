@@ -0,0 +1,22 @@
+class ReferenceCondition {
+
+    int nullCheck(Object o) {
+        int x = 1;
+        if (o == null) {
+            x = 2;
+        }
+        return x;
+    }
+
+    int objectComparison(Object a, Object b) {
+        int x = 1;
+        int y;
+        if (a == b) {
+            y = x;
+        } else {
+            y = 1;
+        }
+        int z = x + y;
+        return z;
+    }
+}
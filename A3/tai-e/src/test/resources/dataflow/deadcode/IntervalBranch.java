@@ -0,0 +1,20 @@
+class IntervalBranch {
+
+    void boundedLoop() {
+        for (int i = 0; i < 10; i++) {
+            if (i > 20) {
+                use(i); // unreachable branch
+            }
+        }
+    }
+
+    void boundedRemainder(int n) {
+        int r = n % 10;
+        if (r >= 10) {
+            use(r); // unreachable branch
+        }
+    }
+
+    void use(int n) {
+    }
+}
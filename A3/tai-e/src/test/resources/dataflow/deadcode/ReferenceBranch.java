@@ -0,0 +1,25 @@
+class ReferenceBranch {
+
+    int nullCheck(Object o) {
+        int x = 1;
+        if (o == null) {
+            x = 2;
+        }
+        int dead = x; // dead assignment
+        return x;
+    }
+
+    int objectComparison(Object a, Object b) {
+        int x = 1;
+        if (a == b) {
+            x = 1;
+        }
+        if (x > 2) {
+            use(x); // unreachable branch
+        }
+        return x;
+    }
+
+    void use(int n) {
+    }
+}
@@ -0,0 +1,22 @@
+class ReachingDefinition {
+
+    int branch(int p) {
+        int x = 1;
+        int y = 2;
+        if (p > 0) {
+            x = 3;
+        } else {
+            y = 4;
+        }
+        int z = x + y;
+        return z;
+    }
+
+    int loop(int n) {
+        int s = 0;
+        for (int i = 0; i < n; i++) {
+            s = s + i;
+        }
+        return s;
+    }
+}
@@ -24,9 +24,16 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.util.AnalysisException;
 
-import java.util.Collections;
+import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Represents data facts of constant propagation, which maps variables
@@ -37,15 +44,131 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * Instead of a hash map from {@link Var} to {@link Value}, this fact
+ * encodes each value as a long (the kind in the high 32 bits and the
+ * constant in the low 32 bits) and stores it in an array indexed by
+ * {@link Var#getIndex()}, where 0 represents UNDEF. Thus, copying,
+ * meeting and comparing facts are loops over primitive arrays.
+ * As variable indexes are local to a method, a fact can only hold
+ * the variables of one method; this holds for both intraprocedural
+ * and interprocedural constant propagation, where the facts of each
+ * node only contain the variables of its containing method.
  */
 public class CPFact extends MapFact<Var, Value> {
 
+    private static final long UNDEF = 0L;
+
+    private static final long CONSTANT = 1L << 32;
+
+    private static final long NAC = 2L << 32;
+
+    private static final Var[] EMPTY_VARS = {};
+
+    private static final long[] EMPTY_VALUES = {};
+
+    /**
+     * The variables of the mappings, indexed by {@link Var#getIndex()}.
+     */
+    private Var[] vars;
+
+    /**
+     * The encoded values of the mappings, indexed by {@link Var#getIndex()}.
+     */
+    private long[] values;
+
+    /**
+     * Decoded constants which are not cached by {@link Value}, indexed by
+     * {@link Var#getIndex()}, so that {@link #get(Var)} does not allocate
+     * a new {@link Value} for such a constant each time it is queried.
+     * An element may be stale and is valid only if it equals the value
+     * at the same index of {@link #values}.
+     */
+    @Nullable
+    private Value[] constants;
+
     public CPFact() {
-        this(Collections.emptyMap());
+        this(EMPTY_VARS, EMPTY_VALUES);
+    }
+
+    private CPFact(Var[] vars, long[] values) {
+        super((Void) null);
+        this.vars = vars;
+        this.values = values;
+    }
+
+    private static long encode(Value value) {
+        if (value.isConstant()) {
+            return CONSTANT | (value.getConstant() & 0xffffffffL);
+        }
+        return value.isNAC() ? NAC : UNDEF;
+    }
+
+    private static Value decode(long value) {
+        if (value == UNDEF) {
+            return Value.getUndef();
+        }
+        return value == NAC ? Value.getNAC() : Value.makeConstant((int) value);
+    }
+
+    /**
+     * @return the decoded value at the i-th slot of this fact.
+     */
+    private Value decode(int i) {
+        long value = values[i];
+        if ((value & ~0xffffffffL) != CONSTANT) {
+            return decode(value);
+        }
+        int constant = (int) value;
+        if (constant >= Byte.MIN_VALUE && constant <= Byte.MAX_VALUE) {
+            return Value.makeConstant(constant); // cached by Value
+        }
+        if (constants == null) {
+            constants = new Value[values.length];
+        } else if (constants.length < values.length) {
+            constants = Arrays.copyOf(constants, values.length);
+        }
+        Value decoded = constants[i];
+        if (decoded == null || !decoded.isConstant()
+                || decoded.getConstant() != constant) {
+            decoded = constants[i] = Value.makeConstant(constant);
+        }
+        return decoded;
+    }
+
+    /**
+     * @return hash code of the decoded value, which is the same as
+     * {@link Value#hashCode()} but does not need to decode the value.
+     */
+    private static int hashValue(long value) {
+        return (value & ~0xffffffffL) == CONSTANT ? (int) value : 0;
+    }
+
+    /**
+     * Meets two encoded values, which is the same as
+     * {@link ConstantPropagation#meetValue(Value, Value)}.
+     */
+    private static long meet(long v1, long v2) {
+        if (v1 == UNDEF || v1 == v2) {
+            return v2;
+        }
+        return v2 == UNDEF ? v1 : NAC;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            int newCapacity = Math.max(capacity, values.length * 2);
+            vars = Arrays.copyOf(vars, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
     }
 
-    private CPFact(Map<Var, Value> map) {
-        super(map);
+    /**
+     * @return the encoded value of given variable.
+     */
+    private long getEncoded(Var var) {
+        int i = var.getIndex();
+        return i < values.length && vars[i] == var ? values[i] : UNDEF;
     }
 
     /**
@@ -54,23 +177,182 @@ public class CPFact extends MapFact<Var, Value> {
      */
     @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        return getEncoded(key) == UNDEF ?
+                Value.getUndef() : decode(key.getIndex());
     }
 
     @Override
     public boolean update(Var key, Value value) {
-        if (value.isUndef()) {
+        long encoded = encode(value);
+        if (encoded == UNDEF) {
             // if the client code sets variable key to UNDEF,
             // then we remove the variable from the CPFact
             // as we use absence to represent UNDEF.
             return remove(key) != null;
-        } else {
-            return super.update(key, value);
         }
+        int i = key.getIndex();
+        ensureCapacity(i + 1);
+        checkVar(i, key);
+        if (values[i] == encoded) {
+            return false;
+        }
+        vars[i] = key;
+        values[i] = encoded;
+        return true;
+    }
+
+    /**
+     * Checks that the i-th slot of this fact is empty or holds var.
+     *
+     * @throws AnalysisException if the slot holds a variable
+     *                           of a different method
+     */
+    private void checkVar(int i, Var var) {
+        if (vars[i] != null && vars[i] != var) {
+            throw new AnalysisException(var + " and " + vars[i] +
+                    " of different methods are in the same CPFact");
+        }
+    }
+
+    @Override
+    public Value remove(Var key) {
+        long old = getEncoded(key);
+        if (old == UNDEF) {
+            return null;
+        }
+        int i = key.getIndex();
+        Value value = decode(i);
+        vars[i] = null;
+        values[i] = UNDEF;
+        return value;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (!(fact instanceof CPFact that)) {
+            return super.copyFrom(fact);
+        }
+        ensureCapacity(that.values.length);
+        boolean changed = false;
+        for (int i = 0; i < that.values.length; ++i) {
+            long value = that.values[i];
+            if (value != UNDEF) {
+                checkVar(i, that.vars[i]);
+                if (value != values[i]) {
+                    vars[i] = that.vars[i];
+                    values[i] = value;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean meet(CPFact fact) {
+        ensureCapacity(fact.values.length);
+        boolean changed = false;
+        for (int i = 0; i < fact.values.length; ++i) {
+            if (fact.values[i] != UNDEF) {
+                checkVar(i, fact.vars[i]);
+            }
+            long old = values[i];
+            long value = meet(old, fact.values[i]);
+            if (value != old) {
+                vars[i] = fact.vars[i];
+                values[i] = value;
+                changed = true;
+            }
+        }
+        return changed;
     }
 
     @Override
     public CPFact copy() {
-        return new CPFact(this.map);
+        return new CPFact(vars.clone(), values.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(vars, null);
+        Arrays.fill(values, UNDEF);
+    }
+
+    /**
+     * @return the variables contained in this fact. Different from
+     * {@link MapFact#keySet()}, the returned set is not backed by this fact.
+     */
+    @Override
+    public Set<Var> keySet() {
+        return indexes().mapToObj(i -> vars[i])
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return indexes().mapToObj(i -> Map.entry(vars[i], decode(i)));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != UNDEF) {
+                action.accept(vars[i], decode(i));
+            }
+        }
+    }
+
+    /**
+     * @return indexes of the variables contained in this fact.
+     */
+    private IntStream indexes() {
+        return IntStream.range(0, values.length)
+                .filter(i -> values[i] != UNDEF);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CPFact that)) {
+            // compare with other kinds of map facts by mappings
+            return o instanceof MapFact<?, ?> fact &&
+                    fact.equals(new MapFact<>(entries().collect(
+                            Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))));
+        }
+        long[] shorter = values, longer = that.values;
+        if (shorter.length > longer.length) {
+            shorter = that.values;
+            longer = values;
+        }
+        for (int i = 0; i < shorter.length; ++i) {
+            if (shorter[i] != longer[i]) {
+                return false;
+            }
+        }
+        for (int i = shorter.length; i < longer.length; ++i) {
+            if (longer[i] != UNDEF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // consistent with the hash code of MapFact, i.e., sum of
+        // the hash codes of the entries
+        int hash = 0;
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != UNDEF) {
+                hash += vars[i].hashCode() ^ hashValue(values[i]);
+            }
+        }
+        return hash;
     }
 }
@@ -68,12 +68,7 @@ public class ConstantPropagation extends
     @Override
     public void meetInto(CPFact fact, CPFact target) {
         // TODO - finish me
-        fact.entries().forEach(varValueEntry -> {
-            Var var = varValueEntry.getKey();
-            Value newVal = varValueEntry.getValue();
-            Value targetVal = target.get(var);
-            target.update(var, meetValue(newVal, targetVal));
-        });
+        target.meet(fact);
     }
 
     /**
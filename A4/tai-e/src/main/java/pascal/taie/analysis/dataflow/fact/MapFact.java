@@ -24,7 +24,9 @@ package pascal.taie.analysis.dataflow.fact;
 
 import pascal.taie.util.collection.Maps;
 
+import javax.annotation.Nullable;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -41,8 +43,10 @@ import java.util.stream.Stream;
 public class MapFact<K, V> {
 
     /**
-     * The map holding the mappings of this MapFact.
+     * The map holding the mappings of this MapFact, or null if this fact
+     * is of a subclass that stores the mappings by itself, e.g., CPFact.
      */
+    @Nullable
     protected final Map<K, V> map;
 
     /**
@@ -54,6 +58,14 @@ public class MapFact<K, V> {
         this.map = Maps.newHybridMap(map);
     }
 
+    /**
+     * Constructor for subclasses that store the mappings by themselves,
+     * which must override all operations of this class.
+     */
+    protected MapFact(Void noMap) {
+        this.map = null;
+    }
+
     /**
      * @return the value to which the specified key is mapped,
      * or null if this map contains no mapping for the key.
@@ -87,8 +99,11 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
+        // go through entries() as fact may store the mappings by itself
+        Iterator<Map.Entry<K, V>> it = fact.entries().iterator();
         boolean changed = false;
-        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
+        while (it.hasNext()) {
+            Map.Entry<K, V> entry = it.next();
             changed |= update(entry.getKey(), entry.getValue());
         }
         return changed;
@@ -137,16 +152,25 @@ public class MapFact<K, V> {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (!(o instanceof MapFact<?, ?> that)) {
             return false;
         }
-        MapFact<?, ?> that = (MapFact<?, ?>) o;
+        if (that.map == null) {
+            // let the subclass compare the mappings
+            return that.equals(this);
+        }
         return map.equals(that.map);
     }
 
     @Override
     public int hashCode() {
-        return map.hashCode();
+        // sum of the hash codes of the entries as specified by Map.hashCode(),
+        // which does not depend on the representation of the mappings
+        // (the hash codes given by the small maps of Maps.newHybridMap()
+        // do not follow this contract)
+        return entries()
+                .mapToInt(e -> Objects.hashCode(e.getKey()) ^ Objects.hashCode(e.getValue()))
+                .sum();
     }
 
     @Override
@@ -154,8 +178,7 @@ public class MapFact<K, V> {
         // Sort key-value pairs by key's string representation, so that the
         // fact representation is stable across executions. This is useful
         // for comparing expected results and the ones given by the analysis.
-        return "{" + map.entrySet()
-                .stream()
+        return "{" + entries()
                 .sorted(Comparator.comparing(e -> e.getKey().toString()))
                 .map(e -> e.getKey() + "=" + e.getValue())
                 .collect(Collectors.joining(", ")) + "}";
@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.util.AnalysisException;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CPFactTest {
+
+    private static Var newVar(String name, int index) {
+        return new Var(null, name, PrimitiveType.INT, index);
+    }
+
+    private final Var a = newVar("a", 0);
+
+    private final Var b = newVar("b", 1);
+
+    private final Var c = newVar("c", 5);
+
+    @Test
+    public void testPacking() {
+        int[] constants = {0, 1, -1, 127, -128, 128, -129,
+                Integer.MAX_VALUE, Integer.MIN_VALUE};
+        CPFact fact = new CPFact();
+        for (int constant : constants) {
+            assertTrue(fact.update(a, Value.makeConstant(constant)));
+            assertEquals(Value.makeConstant(constant), fact.get(a));
+            assertFalse(fact.update(a, Value.makeConstant(constant)));
+        }
+        fact.update(b, Value.getNAC());
+        assertSame(Value.getNAC(), fact.get(b));
+        assertSame(Value.getUndef(), fact.get(c));
+        // setting UNDEF removes the variable
+        assertTrue(fact.update(b, Value.getUndef()));
+        assertSame(Value.getUndef(), fact.get(b));
+        assertNull(fact.remove(b));
+        assertEquals(Value.makeConstant(Integer.MIN_VALUE), fact.remove(a));
+        assertEquals(new CPFact(), fact);
+    }
+
+    @Test
+    public void testGetDoesNotAllocate() {
+        CPFact fact = new CPFact();
+        fact.update(a, Value.makeConstant(100_000));
+        assertSame(fact.get(a), fact.get(a));
+        fact.update(a, Value.makeConstant(-100_000));
+        assertEquals(Value.makeConstant(-100_000), fact.get(a));
+        assertSame(fact.get(a), fact.get(a));
+    }
+
+    @Test
+    public void testVarIndexCollision() {
+        CPFact fact = new CPFact();
+        fact.update(a, Value.makeConstant(1));
+        Var other = newVar("other", a.getIndex());
+        // a variable of another method is absent rather than aliasing a
+        assertSame(Value.getUndef(), fact.get(other));
+        assertNull(fact.remove(other));
+        try {
+            fact.update(other, Value.makeConstant(2));
+            fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            // expected
+        }
+        CPFact otherFact = new CPFact();
+        otherFact.update(other, Value.getNAC());
+        try {
+            fact.copyFrom(otherFact);
+            fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            // expected
+        }
+        try {
+            fact.meet(otherFact);
+            fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            // expected
+        }
+        assertEquals(Value.makeConstant(1), fact.get(a));
+    }
+
+    @Test
+    public void testMeet() {
+        CPFact f1 = new CPFact();
+        f1.update(a, Value.makeConstant(1));
+        f1.update(b, Value.makeConstant(2));
+        CPFact f2 = new CPFact();
+        f2.update(a, Value.makeConstant(1));
+        f2.update(b, Value.makeConstant(3));
+        f2.update(c, Value.makeConstant(4));
+        assertTrue(f1.meet(f2));
+        assertEquals(Value.makeConstant(1), f1.get(a));
+        assertSame(Value.getNAC(), f1.get(b));
+        assertEquals(Value.makeConstant(4), f1.get(c));
+        assertFalse(f1.meet(f2));
+    }
+
+    @Test
+    public void testEqualsWithMapFact() {
+        CPFact cpFact = new CPFact();
+        cpFact.update(a, Value.makeConstant(1));
+        cpFact.update(b, Value.makeConstant(100_000));
+        cpFact.update(c, Value.getNAC());
+        MapFact<Var, Value> mapFact = new MapFact<>(Map.of(
+                a, Value.makeConstant(1),
+                b, Value.makeConstant(100_000),
+                c, Value.getNAC()));
+        assertEquals(cpFact, mapFact);
+        assertEquals(mapFact, cpFact);
+        assertEquals(mapFact.hashCode(), cpFact.hashCode());
+        assertEquals(mapFact.toString(), cpFact.toString());
+
+        mapFact.update(c, Value.makeConstant(3));
+        assertNotEquals(cpFact, mapFact);
+        assertNotEquals(mapFact, cpFact);
+    }
+
+    @Test
+    public void testCopyFromMapFact() {
+        MapFact<Var, Value> mapFact = new MapFact<>(Map.of(
+                a, Value.makeConstant(-7),
+                c, Value.getNAC()));
+        CPFact cpFact = new CPFact();
+        assertTrue(cpFact.copyFrom(mapFact));
+        assertFalse(cpFact.copyFrom(mapFact));
+        assertEquals(mapFact, cpFact);
+
+        // copy in the other direction goes through CPFact.entries()
+        cpFact.update(b, Value.makeConstant(2));
+        MapFact<Var, Value> copied = new MapFact<>(Map.of());
+        assertTrue(copied.copyFrom(cpFact));
+        assertFalse(copied.copyFrom(cpFact));
+        assertEquals(cpFact, copied);
+        assertEquals(cpFact, cpFact.copy());
+    }
+}
@@ -29,13 +29,14 @@ import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Pair;
 import pascal.taie.util.collection.Streams;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
@@ -47,7 +48,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static pascal.taie.util.collection.CollectionUtils.sum;
 
 /**
@@ -121,11 +126,15 @@ public class ResultProcessor {
     private static void dumpPointsToSet(PointerAnalysisResult result, String output) {
         PrintStream out;
         if (output != null) {  // if output file is given, then dump to the file
-            File outFile = new File(output);
+            Path outFile = Path.of(output);
             try {
-                out = new PrintStream(new FileOutputStream(outFile));
+                // write through a buffered file channel, so that the lines
+                // do not reach the file one write call at a time
+                out = new PrintStream(new BufferedOutputStream(
+                        Channels.newOutputStream(FileChannel.open(
+                                outFile, CREATE, TRUNCATE_EXISTING, WRITE))));
                 logger.info("Dumping points-to set to {} ...", outFile);
-            } catch (FileNotFoundException e) {
+            } catch (IOException e) {
                 throw new RuntimeException("Failed to open output file", e);
             }
         } else {  // otherwise, dump to System.out
@@ -142,12 +151,29 @@ public class ResultProcessor {
 
     private static void dumpPointers(PrintStream out, Collection<? extends Pointer> pointers, String desc) {
         out.println(HEADER + desc);
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
+        // the lines are formatted in parallel, and forEachOrdered()
+        // writes them in the sorted order, as sequential dumping does
+        sortByString(pointers)
+                .map(p -> p.first() + SEP + toString(p.second().getPointsToSet()))
+                .forEachOrdered(out::println);
         out.println();
     }
 
+    /**
+     * Sorts pointers by their string representations, which are computed
+     * only once for each pointer. Pointers with the same string
+     * representation keep their iteration order in the collection.
+     *
+     * @return a parallel stream of (string representation, pointer) pairs.
+     */
+    private static <P extends Pointer> Stream<Pair<String, P>> sortByString(
+            Collection<P> pointers) {
+        return new ArrayList<>(pointers)
+                .parallelStream()
+                .map(p -> new Pair<>(p.toString(), p))
+                .sorted(Comparator.comparing(Pair::first));
+    }
+
     private static void comparePointsToSet(PointerAnalysisResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
         var inputs = readPointsToSets(input);
@@ -195,9 +221,8 @@ public class ResultProcessor {
 
     private static void addPointers(Map<String, Pointer> map,
                                     Collection<? extends Pointer> pointers) {
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> map.put(p.toString(), p));
+        sortByString(pointers)
+                .forEachOrdered(p -> map.put(p.first(), p.second()));
     }
 
     private static String toString(PointsToSet pts) {
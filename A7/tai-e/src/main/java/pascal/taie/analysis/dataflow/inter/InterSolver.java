@@ -23,11 +23,18 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverProfiler;
 import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.util.collection.HybridArrayHashSet;
+import pascal.taie.util.collection.Maps;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 
@@ -42,30 +49,70 @@ class InterSolver<Method, Node, Fact> {
 
     private final ICFG<Method, Node> icfg;
 
+    @Nullable
+    private final SolverProfiler profiler;
+
     private DataflowResult<Node, Fact> result;
 
     private Queue<Node> workList;
 
+    /**
+     * Initial fact read as the in fact of the nodes whose in facts have not
+     * been written. A node gets a fact of its own on the first write to its
+     * fact, and this fact itself is never modified.
+     */
+    private Fact bottom;
+
+    /**
+     * Output of the transfers of the nodes whose out facts have not been
+     * written. It is stored as the out fact of a node only if the transfer
+     * changes it, otherwise it is still bottom and reused by the next
+     * transfer, thus the nodes whose out facts stay bottom get no facts.
+     */
+    @Nullable
+    private Fact scratch;
+
+    /**
+     * Node -> number of changes of its out fact.
+     */
+    private Map<Node, Integer> versions;
+
+    /**
+     * Edge -> version of the out fact of its source at the last
+     * meet along the edge. As meet is idempotent, a fact needs to be
+     * transferred and met along an edge again only if it has changed.
+     */
+    private Map<ICFGEdge<Node>, Integer> seenVersions;
+
+    /**
+     * @param profiler profiler of the solving process,
+     *                 or null if profiling is disabled
+     */
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
-                ICFG<Method, Node> icfg) {
+                ICFG<Method, Node> icfg, @Nullable SolverProfiler profiler) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.profiler = profiler;
     }
 
     DataflowResult<Node, Fact> solve() {
         result = new DataflowResult<>();
         initialize();
         doSolve();
+        // the facts of the nodes which are never written are created
+        // when they are queried, so that each node has a fact of its own
+        result.setFactFactory(node -> icfg.hasNode(node) ?
+                analysis.newInitialFact() : null);
         return result;
     }
 
     private void initialize() {
         // TODO - finish me
         workList = new LinkedList<>(icfg.getNodes());
-        icfg.getNodes().forEach( node -> {
-            result.setInFact(node, analysis.newInitialFact());
-            result.setOutFact(node, analysis.newInitialFact());
-        });
+        versions = Maps.newMap(icfg.getNumberOfNodes());
+        seenVersions = Maps.newMap();
+        // facts of non-boundary nodes are created on their first writes
+        bottom = analysis.newInitialFact();
         icfg.entryMethods().forEach( entryMethod -> {
             Node entryNode = icfg.getEntryOf(entryMethod);
             result.setOutFact(entryNode, analysis.newBoundaryFact(entryNode));
@@ -75,21 +122,92 @@ class InterSolver<Method, Node, Fact> {
     private void doSolve() {
         // TODO - finish me
         boolean hasChanged;
+        Map<Method, SolverProfiler.Trace> traces = profiler != null ? Maps.newMap() : null;
         do {
             Node node = workList.poll();
-            icfg.getInEdgesOf(node).forEach(inEdge -> {
-                Fact edgeOutFact = analysis.transferEdge(inEdge, result.getOutFact(inEdge.getSource()));
-                analysis.meetInto(edgeOutFact, result.getInFact(node));
-            });
-            hasChanged = analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
+            SolverProfiler.Trace trace = traces != null ? traces.computeIfAbsent(
+                    icfg.getContainingMethodOf(node), profiler::newTrace) : null;
+            if (trace != null) {
+                trace.visit(node, isLoopHead(node));
+            }
+            for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+                Fact sourceOutFact = result.getOutFact(inEdge.getSource());
+                if (sourceOutFact == null) {
+                    // the source still shares bottom, which stays
+                    // bottom after edge transfer, and is identity of meet
+                    continue;
+                }
+                Integer version = versions.getOrDefault(inEdge.getSource(), 0);
+                if (!version.equals(seenVersions.put(inEdge, version))) {
+                    Fact edgeOutFact = analysis.transferEdge(inEdge, sourceOutFact);
+                    analysis.meetInto(edgeOutFact, getInFactForWrite(node));
+                    if (trace != null) {
+                        trace.meet();
+                    }
+                }
+            }
+            Fact out = result.getOutFact(node);
+            if (out != null) {
+                hasChanged = analysis.transferNode(node, getInFact(node), out);
+            } else {
+                if (scratch == null) {
+                    scratch = analysis.newInitialFact();
+                }
+                out = scratch;
+                hasChanged = analysis.transferNode(node, getInFact(node), out);
+                if (hasChanged) {
+                    result.setOutFact(node, out);
+                    scratch = null;
+                }
+            }
+            if (trace != null) {
+                trace.transfer(out, hasChanged);
+            }
             if (hasChanged) {
+                versions.merge(node, 1, Integer::sum);
                 workList.addAll(icfg.getSuccsOf(node));
             }
         } while (!workList.isEmpty());
+        if (traces != null) {
+            profiler.finish(traces.values());
+            profiler.flush();
+        }
+    }
+
+    /**
+     * @return true if node is the head of a loop, i.e., the target of an
+     * intraprocedural edge which jumps backward in the statement order.
+     */
+    private boolean isLoopHead(Node node) {
+        if (node instanceof Stmt target) {
+            for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+                if (inEdge instanceof NormalEdge<Node> &&
+                        inEdge.getSource() instanceof Stmt source &&
+                        source.getIndex() >= target.getIndex()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Fact getInFact(Node node) {
+        Fact fact = result.getInFact(node);
+        return fact != null ? fact : bottom;
+    }
+
+    private Fact getInFactForWrite(Node node) {
+        Fact fact = result.getInFact(node);
+        if (fact == null) {
+            fact = analysis.newInitialFact();
+            result.setInFact(node, fact);
+        }
+        return fact;
     }
 
     protected Fact getOutFact(Node node) {
-        return result.getOutFact(node);
+        Fact fact = result.getOutFact(node);
+        return fact != null ? fact : bottom;
     }
 
     protected void workListAdd(Node node) {this.workList.add(node);}
@@ -46,6 +46,7 @@ import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintWitness;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
@@ -83,6 +84,11 @@ public class Solver {
 
     private TaintAnalysiss taintAnalysis;
 
+    /**
+     * Records predecessors of taint objects, null if disabled.
+     */
+    private TaintWitness witness;
+
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
@@ -116,6 +122,7 @@ public class Solver {
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
         taintAnalysis = new TaintAnalysiss(this);
+        witness = taintAnalysis.getWitness();
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -226,7 +233,7 @@ public class Solver {
         // TODO - finish me
         if (pointerFlowGraph.addEdge(source, target)) {
             PointsToSet pts = source.getPointsToSet();
-            if (!pts.isEmpty()) workList.addEntry(target, pts);
+            if (!pts.isEmpty()) workList.addEntry(source, target, pts);
         }
     }
 
@@ -240,6 +247,11 @@ public class Solver {
             Pointer ptr = entry.pointer();
             PointsToSet pts = entry.pointsToSet();
             PointsToSet delta = propagate(ptr, pts);
+            if (witness != null && entry.source() != null) {
+                // record the first arrival of each taint object
+                Pointer source = entry.source();
+                delta.forEach(csObj -> witness.record(source, ptr, csObj));
+            }
             if (ptr instanceof CSVar csVar) {
                 Context context = csVar.getContext();
                 Var x =  csVar.getVar();
@@ -289,8 +301,8 @@ public class Solver {
         PointsToSet pt = pointer.getPointsToSet();
         pointsToSet.objects().filter( csObj -> !pt.contains(csObj)).forEach(delta::addObject);
         if (pt.addAll(delta)) {
-            pointerFlowGraph.getSuccsOf(pointer).forEach( sucPtr -> workList.addEntry(sucPtr, delta));
-            if (pointer instanceof CSVar csVar) taintAnalysis.propagateTransfer(csVar, delta);
+            pointerFlowGraph.getSuccsOf(pointer).forEach( sucPtr -> workList.addEntry(pointer, sucPtr, delta));
+            taintAnalysis.propagateTransfer(pointer, delta);
         }
         return delta;
 //        return null;
@@ -310,12 +322,20 @@ public class Solver {
                 .forEach( invoke -> {
                     CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
                     JMethod callee = resolveCallee(recvObj, invoke);
+                    if (taintAnalysis.processModeledCall(csCallSite, recvObj, callee)) {
+                        // modeled container methods are not analyzed
+                        return;
+                    }
+                    if (callee == null || callee.isAbstract()) {
+                        // e.g., receiver is a mock object of interface type
+                        return;
+                    }
                     Context calleeContext = contextSelector.selectContext(csCallSite, recvObj, callee);
                     CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
                     Var callSiteRetVar = invoke.getResult();
                     IR ir = callee.getIR();
                     CSVar csCalleeThis = csManager.getCSVar(calleeContext, ir.getThis());
-                    workList.addEntry(csCalleeThis, recv.getPointsToSet());
+                    workList.addEntry(recv, csCalleeThis, recv.getPointsToSet());
                     List<Var> argList = invoke.getInvokeExp().getArgs();
                     List<Var> paramList = ir.getParams();
                     if (callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), csCallSite, csCallee))) {
@@ -363,7 +383,7 @@ public class Solver {
     public void addWorkList(CSVar ptr, CSObj csObj) {
         workList.addEntry(ptr, PointsToSetFactory.make(csObj));
     }
-    public void addWorkList(CSVar ptr, PointsToSet pts) {
+    public void addWorkList(Pointer ptr, PointsToSet pts) {
         workList.addEntry(ptr, pts);
     }
 }
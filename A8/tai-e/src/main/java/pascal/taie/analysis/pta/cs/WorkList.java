@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.cs;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.Queue;
 
@@ -39,7 +40,15 @@ class WorkList {
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        entries.add(new Entry(pointer, pointsToSet, null));
+    }
+
+    /**
+     * Adds an entry to the work list, and remembers the pointer
+     * from which the points-to set flows.
+     */
+    void addEntry(Pointer source, Pointer pointer, PointsToSet pointsToSet) {
+        entries.add(new Entry(pointer, pointsToSet, source));
     }
 
     /**
@@ -59,8 +68,10 @@ class WorkList {
 
     /**
      * Represents entries in the work list.
-     * Each entry consists of a pointer and a points-to set.
+     * Each entry consists of a pointer and a points-to set, and
+     * optionally, the pointer from which the points-to set flows.
      */
-    record Entry(Pointer pointer, PointsToSet pointsToSet) {
+    record Entry(Pointer pointer, PointsToSet pointsToSet,
+                 @Nullable Pointer source) {
     }
 }
@@ -26,17 +26,20 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.analysis.pta.plugin.taint.TaintWitness;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Pair;
 import pascal.taie.util.collection.Streams;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
@@ -49,8 +52,12 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static pascal.taie.util.collection.CollectionUtils.sum;
 
 /**
@@ -80,7 +87,8 @@ public class ResultProcessor {
             return;
         }
         String file = options.getString("file");
-        boolean taintEnabled = options.getString("taint-config") != null;
+        // taint-config may be a single path or a list of paths
+        boolean taintEnabled = options.get("taint-config") != null;
         switch (action) {
             case "dump":
                 dumpPointsToSet(result, file, taintEnabled);
@@ -136,11 +144,15 @@ public class ResultProcessor {
                                         String output, boolean taintEnabled) {
         PrintStream out;
         if (output != null) {  // if output file is given, then dump to the file
-            File outFile = new File(output);
+            Path outFile = Path.of(output);
             try {
-                out = new PrintStream(new FileOutputStream(outFile));
+                // write through a buffered file channel, so that the lines
+                // do not reach the file one write call at a time
+                out = new PrintStream(new BufferedOutputStream(
+                        Channels.newOutputStream(FileChannel.open(
+                                outFile, CREATE, TRUNCATE_EXISTING, WRITE))));
                 logger.info("Dumping points-to set to {} ...", outFile);
-            } catch (FileNotFoundException e) {
+            } catch (IOException e) {
                 throw new RuntimeException("Failed to open output file", e);
             }
         } else {  // otherwise, dump to System.out
@@ -160,12 +172,29 @@ public class ResultProcessor {
 
     private static void dumpPointers(PrintStream out, Collection<? extends Pointer> pointers, String desc) {
         out.println(HEADER + desc);
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
+        // the lines are formatted in parallel, and forEachOrdered()
+        // writes them in the sorted order, as sequential dumping does
+        sortByString(pointers)
+                .map(p -> p.first() + SEP + toString(p.second().getPointsToSet()))
+                .forEachOrdered(out::println);
         out.println();
     }
 
+    /**
+     * Sorts pointers by their string representations, which are computed
+     * only once for each pointer. Pointers with the same string
+     * representation keep their iteration order in the collection.
+     *
+     * @return a parallel stream of (string representation, pointer) pairs.
+     */
+    private static <P extends Pointer> Stream<Pair<String, P>> sortByString(
+            Collection<P> pointers) {
+        return new ArrayList<>(pointers)
+                .parallelStream()
+                .map(p -> new Pair<>(p.toString(), p))
+                .sorted(Comparator.comparing(Pair::first));
+    }
+
     private static void comparePointsToSet(PointerAnalysisResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
         var inputs = readPointsToSets(input);
@@ -213,9 +242,8 @@ public class ResultProcessor {
 
     private static void addPointers(Map<String, Pointer> map,
                                     Collection<? extends Pointer> pointers) {
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> map.put(p.toString(), p));
+        sortByString(pointers)
+                .forEachOrdered(p -> map.put(p.first(), p.second()));
     }
 
     private static String toString(PointsToSet pts) {
@@ -225,8 +253,26 @@ public class ResultProcessor {
     private static void dumpTaintFlows(PrintStream out, PointerAnalysisResult result) {
         Set<TaintFlow> taintFlows = getTaintFlows(result);
         out.printf("Detected %d taint flow(s):%n", taintFlows.size());
-        taintFlows.forEach(out::println);
+        TaintWitness witness = result.getResult(TaintWitness.KEY, (TaintWitness) null);
+        taintFlows.forEach(flow -> {
+            out.println(flow);
+            if (witness != null) {
+                // witness paths are indented, so they are ignored
+                // when reading taint flows from the dumped file
+                witness.getPath(flow).forEach(step -> out.println("    " + step));
+            }
+        });
         out.println();
+        Map<String, Set<TaintFlow>> flowsByConfig =
+                result.getResult(TaintAnalysiss.FLOWS_BY_CONFIG, Map.of());
+        if (flowsByConfig.size() > 1) {
+            // report taint flows of each configuration separately
+            flowsByConfig.forEach((config, flows) -> {
+                out.printf("Detected %d taint flow(s) for %s:%n", flows.size(), config);
+                flows.forEach(out::println);
+                out.println();
+            });
+        }
     }
 
     /**
@@ -0,0 +1,115 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Built-in taint models of JDK containers.
+ * <p>
+ * Each model moves taint objects into and out of the content of
+ * containers, iterators and views, so that taint analysis does not need
+ * to analyze the implementation of the containers. Only the methods of
+ * JDK classes are modeled, thus application classes that implement or
+ * extend the containers are analyzed as usual. When the models are
+ * enabled, the calls dispatched to the modeled methods are not analyzed
+ * by pointer analysis; instead, the returned views and iterators are
+ * represented by mock objects allocated at the call sites.
+ * <p>
+ * Note that only taint objects are modeled, i.e., other objects stored
+ * in the containers are not propagated through the modeled methods.
+ */
+class ContainerModels {
+
+    /**
+     * Each model is represented by {signature pattern, from, to}.
+     */
+    private static final List<String[]> MODELS = List.of(
+            // java.util.Collection
+            m("<java.util.Collection+: boolean add(java.lang.Object)>", "0", "base.content"),
+            m("<java.util.Collection+: boolean addAll(java.util.Collection)>", "0.content", "base.content"),
+            m("<java.util.Collection+: java.util.Iterator iterator()>", "base.content", "result.content"),
+            // java.util.List
+            m("<java.util.List+: java.lang.Object get(int)>", "base.content", "result"),
+            m("<java.util.List+: java.lang.Object set(int,java.lang.Object)>", "1", "base.content"),
+            m("<java.util.List+: java.lang.Object set(int,java.lang.Object)>", "base.content", "result"),
+            m("<java.util.List+: void add(int,java.lang.Object)>", "1", "base.content"),
+            m("<java.util.List+: java.lang.Object remove(int)>", "base.content", "result"),
+            m("<java.util.List+: java.util.List subList(int,int)>", "base.content", "result.content"),
+            m("<java.util.List+: java.util.ListIterator listIterator()>", "base.content", "result.content"),
+            // java.util.Queue and java.util.Deque
+            m("<java.util.Queue+: boolean offer(java.lang.Object)>", "0", "base.content"),
+            m("<java.util.Queue+: java.lang.Object poll()>", "base.content", "result"),
+            m("<java.util.Queue+: java.lang.Object peek()>", "base.content", "result"),
+            m("<java.util.Deque+: void push(java.lang.Object)>", "0", "base.content"),
+            m("<java.util.Deque+: java.lang.Object pop()>", "base.content", "result"),
+            // java.util.Iterator
+            m("<java.util.Iterator+: java.lang.Object next()>", "base.content", "result"),
+            // java.util.Map (only values are modeled)
+            m("<java.util.Map+: java.lang.Object put(java.lang.Object,java.lang.Object)>", "1", "base.content"),
+            m("<java.util.Map+: java.lang.Object put(java.lang.Object,java.lang.Object)>", "base.content", "result"),
+            m("<java.util.Map+: void putAll(java.util.Map)>", "0.content", "base.content"),
+            m("<java.util.Map+: java.lang.Object get(java.lang.Object)>", "base.content", "result"),
+            m("<java.util.Map+: java.lang.Object getOrDefault(java.lang.Object,java.lang.Object)>", "base.content", "result"),
+            m("<java.util.Map+: java.lang.Object remove(java.lang.Object)>", "base.content", "result"),
+            m("<java.util.Map+: java.util.Collection values()>", "base.content", "result.content")
+    );
+
+    private static String[] m(String pattern, String from, String to) {
+        return new String[]{ pattern, from, to };
+    }
+
+    private ContainerModels() {
+    }
+
+    /**
+     * @return taint transfers of the container models that are
+     * present in the JDK classes of the class hierarchy.
+     */
+    static Set<TaintTransfer> getTransfers(MethodMatcher matcher,
+                                           TypeSystem typeSystem) {
+        // type is irrelevant as models only move taint objects
+        // into and out of contents, use Object for clarity
+        Type type = typeSystem.getType(ClassNames.OBJECT);
+        Set<TaintTransfer> transfers = Sets.newSet();
+        for (String[] model : MODELS) {
+            int from = TaintTransfer.toInt(model[1]);
+            int to = TaintTransfer.toInt(model[2]);
+            for (JMethod method : matcher.match(model[0])) {
+                if (!method.isStatic() &&
+                        !method.getDeclaringClass().isApplication()) {
+                    transfers.add(new TaintTransfer(method, from, to, type));
+                }
+            }
+        }
+        return Collections.unmodifiableSet(transfers);
+    }
+}
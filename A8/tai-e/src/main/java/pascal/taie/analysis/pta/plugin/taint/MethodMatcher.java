@@ -0,0 +1,119 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Matches method signature patterns (see {@link MethodPattern})
+ * against the class hierarchy.
+ * <p>
+ * Exact patterns are resolved by {@link ClassHierarchy#getMethod(String)}
+ * directly. For patterns with wildcards, the declared methods of each
+ * class are indexed by subsignature in a sorted map (built on demand and
+ * shared by all patterns), so that a pattern only scans the methods
+ * whose subsignatures start with the literal prefix of the pattern.
+ */
+class MethodMatcher {
+
+    private final ClassHierarchy hierarchy;
+
+    /**
+     * Prefix index: class -> (subsignature -> declared method).
+     */
+    private final Map<JClass, NavigableMap<String, JMethod>> indexes =
+            Maps.newMap();
+
+    /**
+     * Cache of compiled regular expressions of subsignature patterns.
+     */
+    private final Map<String, Pattern> regexes = Maps.newMap();
+
+    MethodMatcher(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * @return all methods that match given signature pattern, or
+     * an empty list if the pattern is malformed or no method matches.
+     */
+    List<JMethod> match(String pattern) {
+        MethodPattern methodPattern = MethodPattern.parse(pattern);
+        if (methodPattern == null) {
+            return List.of();
+        }
+        if (methodPattern.isExact()) {
+            JMethod method = hierarchy.getMethod(methodPattern.toSignature());
+            return method != null ? List.of(method) : List.of();
+        }
+        JClass jclass = hierarchy.getClass(methodPattern.className());
+        if (jclass == null) {
+            return List.of();
+        }
+        Collection<JClass> classes = methodPattern.includeSubclasses() ?
+                hierarchy.getAllSubclassesOf(jclass, true) : List.of(jclass);
+        List<JMethod> result = new ArrayList<>();
+        for (JClass c : classes) {
+            NavigableMap<String, JMethod> index = getIndex(c);
+            if (methodPattern.hasWildcard()) {
+                Pattern regex = regexes.computeIfAbsent(
+                        methodPattern.subsignature(),
+                        unused -> methodPattern.toRegex());
+                String prefix = methodPattern.literalPrefix();
+                NavigableMap<String, JMethod> candidates = prefix.isEmpty() ? index :
+                        index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+                candidates.forEach((subsig, method) -> {
+                    if (regex.matcher(subsig).matches()) {
+                        result.add(method);
+                    }
+                });
+            } else {
+                JMethod method = index.get(methodPattern.subsignature());
+                if (method != null) {
+                    result.add(method);
+                }
+            }
+        }
+        return result;
+    }
+
+    private NavigableMap<String, JMethod> getIndex(JClass jclass) {
+        return indexes.computeIfAbsent(jclass, c -> {
+            NavigableMap<String, JMethod> index = new TreeMap<>();
+            c.getDeclaredMethods().forEach(m ->
+                    index.put(m.getSubsignature().toString(), m));
+            return index;
+        });
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import javax.annotation.Nullable;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a method signature pattern in taint configuration.
+ * Besides exact method signatures, e.g.,
+ * {@code <java.lang.String: java.lang.String concat(java.lang.String)>},
+ * a pattern supports two kinds of wildcards:
+ * <ul>
+ *     <li>a class name ending with {@code +} matches the class and
+ *     all its subclasses (and implementors), e.g.,
+ *     {@code <java.util.List+: boolean add(java.lang.Object)>}
+ *     matches {@code List.add(Object)} and all its overriders;
+ *     <li>{@code *} in the subsignature matches any (possibly empty)
+ *     sequence of characters, e.g., {@code <C: *>} matches all methods
+ *     declared in class {@code C}, and {@code <C: java.lang.String get*(*)>}
+ *     matches all getters of {@code C} that return a string.
+ * </ul>
+ *
+ * @param className         name of the class in the pattern (without {@code +})
+ * @param includeSubclasses whether the pattern also matches subclasses
+ * @param subsignature      the subsignature part (possibly with wildcards)
+ */
+record MethodPattern(String className, boolean includeSubclasses,
+                     String subsignature) {
+
+    private static final char SUBCLASS_MARK = '+';
+
+    private static final char WILDCARD = '*';
+
+    /**
+     * Parses a method signature pattern.
+     *
+     * @return the parsed pattern, or null if given string is not
+     * of form {@code <class: subsignature>}.
+     */
+    @Nullable
+    static MethodPattern parse(String pattern) {
+        String s = pattern.strip();
+        int colon = s.indexOf(':');
+        if (!s.startsWith("<") || !s.endsWith(">") || colon < 0) {
+            return null;
+        }
+        String className = s.substring(1, colon).strip();
+        boolean includeSubclasses = className.endsWith(String.valueOf(SUBCLASS_MARK));
+        if (includeSubclasses) {
+            className = className.substring(0, className.length() - 1);
+        }
+        String subsignature = s.substring(colon + 1, s.length() - 1).strip();
+        return new MethodPattern(className, includeSubclasses, subsignature);
+    }
+
+    /**
+     * @return true if this pattern contains no wildcards, i.e.,
+     * it can only match the method of exact signature.
+     */
+    boolean isExact() {
+        return !includeSubclasses && !hasWildcard();
+    }
+
+    /**
+     * @return true if the subsignature part contains wildcards.
+     */
+    boolean hasWildcard() {
+        return subsignature.indexOf(WILDCARD) >= 0;
+    }
+
+    /**
+     * @return the signature denoted by this pattern without wildcards.
+     * Only meaningful for exact patterns.
+     */
+    String toSignature() {
+        return "<" + className + ": " + subsignature + ">";
+    }
+
+    /**
+     * @return the longest prefix of subsignature that contains no wildcards.
+     */
+    String literalPrefix() {
+        int i = subsignature.indexOf(WILDCARD);
+        return i >= 0 ? subsignature.substring(0, i) : subsignature;
+    }
+
+    /**
+     * Converts the subsignature part to a regular expression.
+     */
+    Pattern toRegex() {
+        StringBuilder sb = new StringBuilder();
+        int start = 0;
+        int i;
+        while ((i = subsignature.indexOf(WILDCARD, start)) >= 0) {
+            sb.append(Pattern.quote(subsignature.substring(start, i)))
+                    .append(".*");
+            start = i + 1;
+        }
+        sb.append(Pattern.quote(subsignature.substring(start)));
+        return Pattern.compile(sb.toString());
+    }
+
+    @Override
+    public String toString() {
+        return "<" + className + (includeSubclasses ? SUBCLASS_MARK : "") +
+                ": " + subsignature + ">";
+    }
+}
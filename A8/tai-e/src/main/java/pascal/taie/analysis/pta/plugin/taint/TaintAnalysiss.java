@@ -28,6 +28,7 @@ import pascal.taie.World;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.*;
+import pascal.taie.analysis.pta.core.heap.MockObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.cs.Solver;
 import pascal.taie.analysis.pta.pts.PointsToSet;
@@ -36,21 +37,52 @@ import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.InvokeInstanceExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
 import pascal.taie.util.collection.*;
 
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 public class TaintAnalysiss {
 
     private static final Logger logger = LogManager.getLogger(TaintAnalysiss.class);
 
+    /**
+     * Key of the result that maps name of each taint configuration
+     * to the taint flows detected for it.
+     */
+    public static final String FLOWS_BY_CONFIG = "taint-flows-by-config";
+
+    /**
+     * Name of the synthetic field that models the contents of objects.
+     */
+    private static final String CONTENT_FIELD_NAME = "$taint-content";
+
+    /**
+     * Description of the mock objects returned by modeled container
+     * methods, e.g., iterators and views of containers.
+     */
+    private static final String CONTAINER_VIEW_DESC = "ContainerView";
+
     private final TaintManager manager;
 
-    private final TaintConfig config;
+    private final List<TaintConfig> configs;
+
+    // one index for each taint configuration
+    private final List<ConfigIndex> indexes;
 
     private final Solver solver;
 
@@ -58,120 +90,382 @@ public class TaintAnalysiss {
 
     private final Context emptyContext;
 
-    // source method -> only one type, of which taint it generates
-    private final Map<JMethod, Type> sources = Maps.newHybridMap();
-    // method -> one or more sinks included
-    private final MultiMap<JMethod, Sink> sinks = Maps.newMultiMap();
-    // sink -> sink calls in different contexts
-    private final MultiMap<Sink, CSCallSite> sinkCalls = Maps.newMultiMap();
-    // method -> one or more taint transfers that can happen on
-    private final MultiMap<JMethod, TaintTransfer> relevantTransfers = Maps.newMultiMap();
-    // taint transfer edge between from and to
-    private final MultiMap<CSVar, CSVar> transferEdges = Maps.newMultiMap();
+    /**
+     * Synthetic field holding the contents of objects, e.g.,
+     * the elements of containers.
+     */
+    private final JField contentField;
+
+    /**
+     * JDK methods of the built-in container models -> their transfers.
+     * The calls dispatched to these methods are not analyzed by
+     * pointer analysis.
+     */
+    private final MultiMap<JMethod, TaintTransfer> modelTransfers = Maps.newMultiMap();
+
+    // modeled methods that move taint objects to the content of result
+    private final Set<JMethod> viewMethods;
+
+    // (call site, modeled callee) that have been processed
+    private final Set<Pair<CSCallSite, JMethod>> modeledCalls = Sets.newSet();
+
+    /**
+     * Records predecessors of taint objects for rebuilding witness
+     * paths, null if option taint-witness is disabled.
+     */
+    @Nullable
+    private final TaintWitness witness;
+
     public TaintAnalysiss(Solver solver) {
         manager = new TaintManager();
         this.solver = solver;
         csManager = solver.getCSManager();
         emptyContext = solver.getContextSelector().getEmptyContext();
-        config = TaintConfig.readConfig(
-                solver.getOptions().getString("taint-config"),
-                World.get().getClassHierarchy(),
-                World.get().getTypeSystem());
-        logger.info(config);
-        // do more initialization
-        config.getSources().forEach(source -> sources.put(source.method(), source.type()));
-        config.getSinks().forEach(sink -> sinks.put(sink.method(), sink));
-        config.getTransfers().forEach(transfer -> relevantTransfers.put(transfer.method(), transfer));
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        contentField = new JField(hierarchy.getJREClass(ClassNames.OBJECT),
+                CONTENT_FIELD_NAME, Set.of(), typeSystem.getType(ClassNames.OBJECT),
+                AnnotationHolder.emptyHolder());
+        configs = TaintConfig.readConfigs(
+                solver.getOptions().get("taint-config"),
+                solver.getOptions().getString("taint-config-cache"),
+                hierarchy, typeSystem);
+        Set<TaintTransfer> models =
+                solver.getOptions().getBooleanOrDefault("taint-container-models", false) ?
+                        ContainerModels.getTransfers(new MethodMatcher(hierarchy), typeSystem) :
+                        Set.of();
+        models.forEach(transfer -> modelTransfers.put(transfer.method(), transfer));
+        int resultContent = TaintTransfer.toContent(TaintTransfer.RESULT);
+        viewMethods = models.stream()
+                .filter(transfer -> transfer.to() == resultContent)
+                .map(TaintTransfer::method)
+                .collect(Collectors.toUnmodifiableSet());
+        // taint objects need to be tagged only when multiple
+        // configurations share the same pointer analysis
+        boolean tagged = configs.size() > 1;
+        indexes = configs.stream()
+                .map(config -> {
+                    logger.info(config);
+                    return new ConfigIndex(config, tagged ? config.getName() : null);
+                })
+                .toList();
+        witness = solver.getOptions().getBooleanOrDefault("taint-witness", false) ?
+                new TaintWitness(manager::isTaint) : null;
+    }
+
+    /**
+     * @return the witness recorder, or null if it is disabled.
+     */
+    @Nullable
+    public TaintWitness getWitness() {
+        return witness;
     }
 
     // TODO - finish me
     public void checkAndMarkSourceCall(CSCallSite csCallSite) {
         JMethod method = csCallSite.getCallSite().getMethodRef().resolve();
-        if (!sources.containsKey(method)) return;
-        Context context = csCallSite.getContext();
-        Invoke callSite = csCallSite.getCallSite();
-        Type type = sources.get(method);
-        Var callSiteRetVar = callSite.getResult();
-        CSVar csCallSiteRetVar = csManager.getCSVar(context, callSiteRetVar);
-        solver.addWorkList(csCallSiteRetVar, csManager.getCSObj(emptyContext, manager.makeTaint(callSite, type)));
+        for (ConfigIndex index : indexes) {
+            if (!index.sources.containsKey(method)) continue;
+            Context context = csCallSite.getContext();
+            Invoke callSite = csCallSite.getCallSite();
+            Type type = index.sources.get(method);
+            Var callSiteRetVar = callSite.getResult();
+            CSVar csCallSiteRetVar = csManager.getCSVar(context, callSiteRetVar);
+            solver.addWorkList(csCallSiteRetVar, csManager.getCSObj(emptyContext,
+                    manager.makeTaint(callSite, type, index.tag)));
+        }
     }
 
     public void checkAndMarkSinkCall(CSCallSite csCallSite) {
         JMethod method = csCallSite.getCallSite().getMethodRef().resolve();
-        if (!sinks.containsKey(method)) return;
-        sinks.get(method).forEach(sink -> sinkCalls.put(sink, csCallSite));
+        for (ConfigIndex index : indexes) {
+            if (!index.sinks.containsKey(method)) continue;
+            index.sinks.get(method).forEach(sink -> index.sinkCalls.put(sink, csCallSite));
+        }
     }
 
     public boolean isTransfer(CSCallSite csCallSite) {
-        return !relevantTransfers.get(csCallSite.getCallSite().getMethodRef().resolve()).isEmpty();
+        JMethod method = csCallSite.getCallSite().getMethodRef().resolve();
+        return indexes.stream()
+                .anyMatch(index -> index.relevantTransfers.containsKey(method));
     }
 
     public void checkAndAddTTEdge(CSCallSite csCallSite) {
+        JMethod method = csCallSite.getCallSite().getMethodRef().resolve();
+        for (ConfigIndex index : indexes) {
+            if (!index.relevantTransfers.containsKey(method)) continue;
+            addTransferEdges(index, csCallSite, index.relevantTransfers.get(method));
+        }
+    }
+
+    /**
+     * Adds the edges of given transfers at the call site for index.
+     */
+    private void addTransferEdges(ConfigIndex index, CSCallSite csCallSite,
+                                  Set<TaintTransfer> transfers) {
         Invoke callSite = csCallSite.getCallSite();
-        JMethod method = callSite.getMethodRef().resolve();
-        if (!relevantTransfers.containsKey(method)) return;
         Context context = csCallSite.getContext();
-        Set<TaintTransfer> transfers = relevantTransfers.get(method);
-        for (TaintTransfer transfer:transfers) {
-            int from = transfer.from();
-            int to = transfer.to();
-            InvokeExp invokeExp = callSite.getInvokeExp();
-            CSVar fromCSVar;
-            CSVar toCSVar;
-            if (from >=0 && to ==-2) { // from arg to result
-                fromCSVar = csManager.getCSVar(context, invokeExp.getArg(from));
-                toCSVar = csManager.getCSVar(context, callSite.getResult());
-            } else if (from == -1 && to == -2) { // from base to result
-                InvokeInstanceExp invokeInstanceExp = (InvokeInstanceExp) invokeExp;
-                fromCSVar = csManager.getCSVar(context, invokeInstanceExp.getBase());
-                toCSVar = csManager.getCSVar(context, callSite.getResult());
-            } else { // from arg to base
-                InvokeInstanceExp invokeInstanceExp = (InvokeInstanceExp) invokeExp;
-                fromCSVar = csManager.getCSVar(context, invokeExp.getArg(from));
-                toCSVar = csManager.getCSVar(context, invokeInstanceExp.getBase());
+        for (TaintTransfer transfer : transfers) {
+            CSVar from = getCSVar(context, callSite,
+                    TaintTransfer.getVarIndex(transfer.from()));
+            CSVar to = getCSVar(context, callSite,
+                    TaintTransfer.getVarIndex(transfer.to()));
+            if (from == null || to == null) continue;
+            boolean fromContent = TaintTransfer.isContent(transfer.from());
+            boolean toContent = TaintTransfer.isContent(transfer.to());
+            if (!fromContent && !toContent) {
+                if (index.transferEdges.put(from, to)) {
+                    PointsToSet fromPTS = from.getPointsToSet();
+                    doTransfer(index, from, fromPTS, to);
+                }
+                continue;
+            }
+            // content transfers depend on the objects pointed to by
+            // the variables whose contents are involved
+            ContentTransfer ct = new ContentTransfer(from, fromContent, to, toContent);
+            if (fromContent && index.contentTransfers.put(from, ct)) {
+                addTaintEdges(index, ct, from.getPointsToSet(), to.getPointsToSet());
             }
-            if (transferEdges.put(fromCSVar, toCSVar)) {
-                PointsToSet fromPTS = fromCSVar.getPointsToSet();
-                doTransfer(fromPTS, toCSVar);
+            if (toContent && index.contentTransfers.put(to, ct)) {
+                addTaintEdges(index, ct, from.getPointsToSet(), to.getPointsToSet());
             }
         }
     }
 
-    public void doTransfer(PointsToSet fromPTS, CSVar to) {
+    /**
+     * @return the CSVar of the variable of given index at the call site,
+     * or null if the call site does not have such variable.
+     */
+    @Nullable
+    private CSVar getCSVar(Context context, Invoke callSite, int index) {
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        Var var = switch (index) {
+            case TaintTransfer.BASE -> invokeExp instanceof InvokeInstanceExp instanceExp ?
+                    instanceExp.getBase() : null;
+            case TaintTransfer.RESULT -> callSite.getResult();
+            default -> invokeExp.getArg(index);
+        };
+        return var != null ? csManager.getCSVar(context, var) : null;
+    }
+
+    private void doTransfer(ConfigIndex index, CSVar from, PointsToSet fromPTS, CSVar to) {
         PointsToSet taintSet = PointsToSetFactory.make();
-        fromPTS.objects().map(CSObj::getObject).filter(manager::isTaint)
-                .forEach(taintObj -> {
-                    Invoke invoke = manager.getSourceCall(taintObj);
-                    Obj transferredTaint = manager.makeTaint(invoke, to.getType());
-                    taintSet.addObject(csManager.getCSObj(emptyContext, transferredTaint));
+        fromPTS.objects().filter(csObj -> index.isTaint(csObj.getObject()))
+                .forEach(csTaint -> {
+                    Invoke invoke = manager.getSourceCall(csTaint.getObject());
+                    Obj transferredTaint = manager.makeTaint(invoke, to.getType(), index.tag);
+                    CSObj csTransferred = csManager.getCSObj(emptyContext, transferredTaint);
+                    if (witness != null &&
+                            !to.getPointsToSet().contains(csTransferred)) {
+                        witness.recordTransfer(from, csTaint, to, csTransferred);
+                    }
+                    taintSet.addObject(csTransferred);
                 });
         if (!taintSet.isEmpty()) solver.addWorkList(to, taintSet);
     }
 
-    public void propagateTransfer(CSVar from, PointsToSet pts) {
-        transferEdges.get(from).forEach(to -> doTransfer(pts, to));
+    /**
+     * Adds taint edges for content transfer ct, where fromObjs and toObjs
+     * are the (new) objects pointed to by the from and to variables.
+     */
+    private void addTaintEdges(ConfigIndex index, ContentTransfer ct,
+                               PointsToSet fromObjs, PointsToSet toObjs) {
+        List<Pointer> sources = ct.fromContent() ?
+                getContents(fromObjs) : List.of(ct.from());
+        List<Pointer> targets = ct.toContent() ?
+                getContents(toObjs) : List.of(ct.to());
+        for (Pointer source : sources) {
+            for (Pointer target : targets) {
+                if (index.taintEdges.put(source, target)) {
+                    moveTaint(index, source, source.getPointsToSet(), target);
+                }
+            }
+        }
+    }
+
+    private List<Pointer> getContents(PointsToSet pts) {
+        return pts.objects()
+                .map(csObj -> (Pointer) csManager.getInstanceField(csObj, contentField))
+                .toList();
+    }
+
+    /**
+     * Moves the taint objects in pts to target as they are.
+     */
+    private void moveTaint(ConfigIndex index, Pointer source,
+                           PointsToSet pts, Pointer target) {
+        PointsToSet taintSet = PointsToSetFactory.make();
+        pts.objects().filter(csObj -> index.isTaint(csObj.getObject()))
+                .forEach(csTaint -> {
+                    if (witness != null &&
+                            !target.getPointsToSet().contains(csTaint)) {
+                        witness.recordTransfer(source, csTaint, target, csTaint);
+                    }
+                    taintSet.addObject(csTaint);
+                });
+        if (!taintSet.isEmpty()) solver.addWorkList(target, taintSet);
+    }
+
+    /**
+     * Propagates the new objects pts of pointer along taint transfers.
+     */
+    public void propagateTransfer(Pointer pointer, PointsToSet pts) {
+        for (ConfigIndex index : indexes) {
+            if (pointer instanceof CSVar from) {
+                index.transferEdges.get(from).forEach(to -> doTransfer(index, from, pts, to));
+                index.contentTransfers.get(from).forEach(ct -> {
+                    if (ct.fromContent() && ct.from().equals(from)) {
+                        addTaintEdges(index, ct, pts, ct.to().getPointsToSet());
+                    }
+                    if (ct.toContent() && ct.to().equals(from)) {
+                        addTaintEdges(index, ct, ct.from().getPointsToSet(), pts);
+                    }
+                });
+            }
+            index.taintEdges.get(pointer).forEach(target -> moveTaint(index, pointer, pts, target));
+        }
+    }
+
+    /**
+     * Processes the call dispatched to a JDK method of built-in container
+     * models. Such calls are processed only once for each call site (in
+     * each context) and callee, and the callees are not analyzed by
+     * pointer analysis. If the transfers of the callee move taint objects
+     * to the content of the result, a mock object is allocated for the
+     * result.
+     *
+     * @param recvObj the receiver object of the call
+     * @param callee  the callee dispatched on recvObj, which may be an
+     *                application method overriding a modeled method,
+     *                or null if the call cannot be dispatched
+     * @return true if the callee of given call site is modeled.
+     */
+    public boolean processModeledCall(CSCallSite csCallSite, CSObj recvObj,
+                                      @Nullable JMethod callee) {
+        Invoke callSite = csCallSite.getCallSite();
+        JMethod method = callee;
+        if (recvObj.getObject() instanceof MockObj mockObj &&
+                mockObj.getDescription().equals(CONTAINER_VIEW_DESC)) {
+            // container views are typed by interfaces, on which the
+            // calls cannot be dispatched, thus we use the declared callee
+            method = callSite.getMethodRef().resolve();
+        }
+        if (method == null || !modelTransfers.containsKey(method)) {
+            return false;
+        }
+        if (modeledCalls.add(new Pair<>(csCallSite, method))) {
+            checkAndMarkSourceCall(csCallSite);
+            checkAndAddTTEdge(csCallSite);
+            checkAndMarkSinkCall(csCallSite);
+            for (ConfigIndex index : indexes) {
+                addTransferEdges(index, csCallSite, modelTransfers.get(method));
+            }
+            Var result = callSite.getResult();
+            if (result != null && viewMethods.contains(method)) {
+                Obj view = new MockObj(CONTAINER_VIEW_DESC, callSite,
+                        method.getReturnType(), callSite.getContainer());
+                solver.addWorkList(csManager.getCSVar(csCallSite.getContext(), result),
+                        csManager.getCSObj(emptyContext, view));
+            }
+        }
+        return true;
     }
 
     public void onFinish() {
-        Set<TaintFlow> taintFlows = collectTaintFlows();
+        Map<String, Set<TaintFlow>> flowsByConfig = new LinkedHashMap<>();
+        Set<TaintFlow> taintFlows = new TreeSet<>();
+        for (ConfigIndex index : indexes) {
+            Set<TaintFlow> flows = collectTaintFlows(index);
+            flowsByConfig.put(index.config.getName(), Collections.unmodifiableSet(flows));
+            taintFlows.addAll(flows);
+        }
         solver.getResult().storeResult(getClass().getName(), taintFlows);
+        solver.getResult().storeResult(FLOWS_BY_CONFIG,
+                Collections.unmodifiableMap(flowsByConfig));
+        if (witness != null) {
+            solver.getResult().storeResult(TaintWitness.KEY, witness);
+        }
     }
 
-    private Set<TaintFlow> collectTaintFlows() {
+    private Set<TaintFlow> collectTaintFlows(ConfigIndex index) {
         Set<TaintFlow> taintFlows = new TreeSet<>();
         PointerAnalysisResult result = solver.getResult();
         // TODO - finish me
         // You could query pointer analysis results you need via variable result.
-        sinks.forEach((method, sink) -> {
+        index.sinks.forEach((method, sink) -> {
             int sinkIndex = sink.index();
-            sinkCalls.get(sink).forEach(csCallSite -> {
+            index.sinkCalls.get(sink).forEach(csCallSite -> {
                 Context context = csCallSite.getContext();
                 Invoke sinkCall = csCallSite.getCallSite();
                 Var arg = sinkCall.getInvokeExp().getArg(sinkIndex);
-                result.getPointsToSet(csManager.getCSVar(context, arg)).stream()
-                        .map(CSObj::getObject).filter(manager::isTaint)
-                        .forEach(obj -> taintFlows.add(new TaintFlow(manager.getSourceCall(obj), sinkCall, sinkIndex)));});
+                CSVar csArg = csManager.getCSVar(context, arg);
+                result.getPointsToSet(csArg).stream()
+                        .filter(csObj -> index.isTaint(csObj.getObject()))
+                        .forEach(csObj -> {
+                            TaintFlow flow = new TaintFlow(
+                                    manager.getSourceCall(csObj.getObject()), sinkCall, sinkIndex);
+                            taintFlows.add(flow);
+                            if (witness != null) {
+                                witness.addSink(flow, csArg, csObj);
+                            }
+                        });});
         });
         return taintFlows;
     }
+
+    /**
+     * Sources, sinks and transfers of a taint configuration, indexed by
+     * method, together with the sink calls and transfer edges discovered
+     * for the configuration during pointer analysis.
+     */
+    private class ConfigIndex {
+
+        private final TaintConfig config;
+
+        /**
+         * Tag of the taint objects generated for this configuration,
+         * null if taint objects are not tagged.
+         */
+        @Nullable
+        private final String tag;
+
+        // source method -> only one type, of which taint it generates
+        private final Map<JMethod, Type> sources = Maps.newHybridMap();
+        // method -> one or more sinks included
+        private final MultiMap<JMethod, Sink> sinks = Maps.newMultiMap();
+        // sink -> sink calls in different contexts
+        private final MultiMap<Sink, CSCallSite> sinkCalls = Maps.newMultiMap();
+        // method -> one or more taint transfers that can happen on
+        private final MultiMap<JMethod, TaintTransfer> relevantTransfers = Maps.newMultiMap();
+        // taint transfer edge between from and to
+        private final MultiMap<CSVar, CSVar> transferEdges = Maps.newMultiMap();
+        // variable -> content transfers that depend on its points-to set
+        private final MultiMap<CSVar, ContentTransfer> contentTransfers = Maps.newMultiMap();
+        // edges along which taint objects are moved as they are
+        private final MultiMap<Pointer, Pointer> taintEdges = Maps.newMultiMap();
+
+        private ConfigIndex(TaintConfig config, @Nullable String tag) {
+            this.config = config;
+            this.tag = tag;
+            config.getSources().forEach(source -> sources.put(source.method(), source.type()));
+            config.getSinks().forEach(sink -> sinks.put(sink.method(), sink));
+            config.getTransfers().forEach(transfer -> relevantTransfers.put(transfer.method(), transfer));
+        }
+
+        /**
+         * @return true if given obj is a taint object generated
+         * for this configuration.
+         */
+        private boolean isTaint(Obj obj) {
+            return manager.isTaint(obj) && Objects.equals(manager.getTag(obj), tag);
+        }
+    }
+
+    /**
+     * Taint transfer from/to the contents of the objects pointed to by
+     * variables, at least one of fromContent and toContent is true.
+     */
+    private record ContentTransfer(CSVar from, boolean fromContent,
+                                   CSVar to, boolean toContent) {
+    }
 }
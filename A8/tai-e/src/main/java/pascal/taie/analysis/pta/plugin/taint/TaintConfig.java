@@ -33,16 +33,22 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.config.ConfigException;
 import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 import pascal.taie.language.type.TypeSystem;
+import pascal.taie.language.type.VoidType;
 import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -52,6 +58,12 @@ class TaintConfig {
 
     private static final Logger logger = LogManager.getLogger(TaintConfig.class);
 
+    /**
+     * Name of this configuration, used to tag taint objects and
+     * taint flows when multiple configurations are analyzed together.
+     */
+    private final String name;
+
     /**
      * Set of sources.
      */
@@ -67,13 +79,58 @@ class TaintConfig {
      */
     private final Set<TaintTransfer> transfers;
 
-    private TaintConfig(Set<Source> sources, Set<Sink> sinks,
-                        Set<TaintTransfer> transfers) {
+    TaintConfig(String name, Set<Source> sources, Set<Sink> sinks,
+                Set<TaintTransfer> transfers) {
+        this.name = name;
         this.sources = sources;
         this.sinks = sinks;
         this.transfers = transfers;
     }
 
+    /**
+     * Reads taint analysis configurations from the value of option
+     * {@code taint-config}, which is either a list of paths or a string
+     * of comma-separated paths.
+     *
+     * @param option     the value of option taint-config
+     * @param cacheDir   the directory of compiled config cache,
+     *                   or null if cache is disabled
+     * @param hierarchy  the class hierarchy
+     * @param typeSystem the type manager
+     * @return list of TaintConfig objects, one for each given path.
+     * @throws ConfigException if failed to load any of the config files
+     */
+    static List<TaintConfig> readConfigs(
+            Object option, @Nullable String cacheDir,
+            ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        List<String> paths = new ArrayList<>();
+        if (option instanceof Collection<?> c) {
+            c.forEach(path -> paths.add(path.toString().strip()));
+        } else if (option != null) {
+            for (String path : option.toString().split(",")) {
+                paths.add(path.strip());
+            }
+        }
+        TaintConfigCache cache = cacheDir != null ?
+                new TaintConfigCache(new File(cacheDir)) : null;
+        MethodMatcher matcher = new MethodMatcher(hierarchy);
+        List<TaintConfig> configs = new ArrayList<>(paths.size());
+        Set<String> names = Sets.newSet(paths.size());
+        for (String path : paths) {
+            if (path.isEmpty()) {
+                continue;
+            }
+            TaintConfig config = readConfig(path, cache, matcher,
+                    hierarchy, typeSystem);
+            if (!names.add(config.getName())) {
+                throw new ConfigException("Duplicate taint analysis config name '" +
+                        config.getName() + "' (given by " + path + ")");
+            }
+            configs.add(config);
+        }
+        return Collections.unmodifiableList(configs);
+    }
+
     /**
      * Reads a taint analysis configuration from file
      *
@@ -85,19 +142,67 @@ class TaintConfig {
      */
     static TaintConfig readConfig(
             String path, ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        return readConfig(path, null, new MethodMatcher(hierarchy),
+                hierarchy, typeSystem);
+    }
+
+    /**
+     * Reads a taint analysis configuration from cache if it is available
+     * and up-to-date, otherwise, compiles the configuration from file,
+     * i.e., parses the file and resolves all method signature patterns,
+     * and saves the result to cache.
+     */
+    private static TaintConfig readConfig(
+            String path, @Nullable TaintConfigCache cache,
+            MethodMatcher matcher, ClassHierarchy hierarchy,
+            TypeSystem typeSystem) {
         File file = new File(path);
+        String name = toName(file);
+        File cacheFile = cache != null ?
+                cache.getCacheFile(file, World.get().getOptions()) : null;
+        if (cacheFile != null) {
+            TaintConfig cached = cache.load(cacheFile, name,
+                    hierarchy, typeSystem);
+            if (cached != null) {
+                logger.info("Loaded compiled taint config from {}", cacheFile);
+                return cached;
+            }
+        }
         ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
         SimpleModule module = new SimpleModule();
         module.addDeserializer(TaintConfig.class,
-                new Deserializer(hierarchy, typeSystem));
+                new Deserializer(matcher, typeSystem));
         mapper.registerModule(module);
         try {
-            return mapper.readValue(file, TaintConfig.class);
+            TaintConfig config = mapper.readValue(file, TaintConfig.class);
+            config = new TaintConfig(name, config.sources,
+                    config.sinks, config.transfers);
+            if (cacheFile != null) {
+                cache.save(cacheFile, config);
+            }
+            return config;
         } catch (IOException e) {
             throw new ConfigException("Failed to read taint analysis config file " + file, e);
         }
     }
 
+    /**
+     * @return name of the config file without extension, e.g.,
+     * "sqli" for path "config/sqli.yml".
+     */
+    static String toName(File file) {
+        String fileName = file.getName();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    /**
+     * @return name of the configuration.
+     */
+    String getName() {
+        return name;
+    }
+
     /**
      * @return sources in the configuration.
      */
@@ -121,7 +226,11 @@ class TaintConfig {
 
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder("TaintConfig:");
+        StringBuilder sb = new StringBuilder("TaintConfig");
+        if (name != null) {
+            sb.append(" (").append(name).append(")");
+        }
+        sb.append(":");
         if (!sources.isEmpty()) {
             sb.append("\nsources:\n");
             sources.forEach(source ->
@@ -145,12 +254,12 @@ class TaintConfig {
      */
     private static class Deserializer extends JsonDeserializer<TaintConfig> {
 
-        private final ClassHierarchy hierarchy;
+        private final MethodMatcher matcher;
 
         private final TypeSystem typeSystem;
 
-        private Deserializer(ClassHierarchy hierarchy, TypeSystem typeSystem) {
-            this.hierarchy = hierarchy;
+        private Deserializer(MethodMatcher matcher, TypeSystem typeSystem) {
+            this.matcher = matcher;
             this.typeSystem = typeSystem;
         }
 
@@ -162,7 +271,7 @@ class TaintConfig {
             Set<Source> sources = deserializeSources(node.get("sources"));
             Set<Sink> sinks = deserializeSinks(node.get("sinks"));
             Set<TaintTransfer> transfers = deserializeTransfers(node.get("transfers"));
-            return new TaintConfig(sources, sinks, transfers);
+            return new TaintConfig(null, sources, sinks, transfers);
         }
 
         /**
@@ -177,13 +286,14 @@ class TaintConfig {
                 Set<Source> sources = Sets.newSet(arrayNode.size());
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
-                    if (method != null) {
+                    List<JMethod> methods = matcher.match(methodSig);
+                    if (!methods.isEmpty()) {
                         // if the method (given in config file) is absent in
                         // the class hierarchy, just ignore it.
                         Type type = typeSystem.getType(
                                 elem.get("type").asText());
-                        sources.add(new Source(method, type));
+                        methods.forEach(method ->
+                                sources.add(new Source(method, type)));
                     } else {
                         logger.warn("Cannot find source method '{}'", methodSig);
                     }
@@ -207,12 +317,18 @@ class TaintConfig {
                 Set<Sink> sinks = Sets.newSet(arrayNode.size());
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
-                    if (method != null) {
+                    List<JMethod> methods = matcher.match(methodSig);
+                    if (!methods.isEmpty()) {
                         // if the method (given in config file) is absent in
                         // the class hierarchy, just ignore it.
                         int index = elem.get("index").asInt();
-                        sinks.add(new Sink(method, index));
+                        for (JMethod method : methods) {
+                            // a pattern may match methods that have
+                            // no such parameter, just skip them.
+                            if (isValidParam(method, index)) {
+                                sinks.add(new Sink(method, index));
+                            }
+                        }
                     } else {
                         logger.warn("Cannot find sink method '{}'", methodSig);
                     }
@@ -236,15 +352,22 @@ class TaintConfig {
                 Set<TaintTransfer> transfers = Sets.newSet(arrayNode.size());
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
-                    if (method != null) {
+                    List<JMethod> methods = matcher.match(methodSig);
+                    if (!methods.isEmpty()) {
                         // if the method (given in config file) is absent in
                         // the class hierarchy, just ignore it.
                         int from = TaintTransfer.toInt(elem.get("from").asText());
                         int to = TaintTransfer.toInt(elem.get("to").asText());
                         Type type = typeSystem.getType(
                                 elem.get("type").asText());
-                        transfers.add(new TaintTransfer(method, from, to, type));
+                        for (JMethod method : methods) {
+                            // a pattern may match methods that have no
+                            // such "from"/"to" variables, just skip them.
+                            if (isValidIndex(method, TaintTransfer.getVarIndex(from)) &&
+                                    isValidIndex(method, TaintTransfer.getVarIndex(to))) {
+                                transfers.add(new TaintTransfer(method, from, to, type));
+                            }
+                        }
                     } else {
                         logger.warn("Cannot find taint-transfer method '{}'", methodSig);
                     }
@@ -255,5 +378,25 @@ class TaintConfig {
                 return Set.of();
             }
         }
+
+        /**
+         * @return true if the method has parameter of given index.
+         */
+        private static boolean isValidParam(JMethod method, int index) {
+            return 0 <= index && index < method.getParamCount();
+        }
+
+        /**
+         * @return true if the method has the variable of given index,
+         * i.e., a parameter, the base variable, or the result variable.
+         */
+        private static boolean isValidIndex(JMethod method, int index) {
+            return switch (index) {
+                case TaintTransfer.BASE -> !method.isStatic();
+                case TaintTransfer.RESULT ->
+                        !method.getReturnType().equals(VoidType.VOID);
+                default -> isValidParam(method, index);
+            };
+        }
     }
 }
@@ -0,0 +1,254 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.Options;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Binary cache of compiled taint configurations.
+ * <p>
+ * A compiled configuration only consists of exact method signatures
+ * (all patterns have been resolved against the class hierarchy), thus
+ * loading it from cache requires neither parsing YAML nor matching
+ * patterns. Each cache file is keyed by the content of the config file
+ * and the class path (including the sizes and modification times of
+ * the class path entries), so that any change of them invalidates
+ * the cache.
+ */
+class TaintConfigCache {
+
+    private static final Logger logger = LogManager.getLogger(TaintConfigCache.class);
+
+    private static final int MAGIC = 0x54434647; // "TCFG"
+
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".tcfg";
+
+    private final File cacheDir;
+
+    TaintConfigCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @return the cache file for given config file, or null if
+     * the config file cannot be read.
+     */
+    @Nullable
+    File getCacheFile(File configFile, Options options) {
+        try {
+            return new File(cacheDir, TaintConfig.toName(configFile) +
+                    "-" + computeKey(configFile, options) + SUFFIX);
+        } catch (IOException e) {
+            logger.warn("Failed to compute cache key of {}: {}",
+                    configFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Loads compiled taint configuration from given cache file.
+     *
+     * @return the loaded configuration, or null if the cache file is
+     * absent, broken, or stale (i.e., refers to absent methods).
+     */
+    @Nullable
+    TaintConfig load(File cacheFile, String name,
+                     ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int nSources = in.readInt();
+            Set<Source> sources = Sets.newSet(nSources);
+            for (int i = 0; i < nSources; ++i) {
+                JMethod method = hierarchy.getMethod(in.readUTF());
+                Type type = typeSystem.getType(in.readUTF());
+                if (method == null) {
+                    return null;
+                }
+                sources.add(new Source(method, type));
+            }
+            int nSinks = in.readInt();
+            Set<Sink> sinks = Sets.newSet(nSinks);
+            for (int i = 0; i < nSinks; ++i) {
+                JMethod method = hierarchy.getMethod(in.readUTF());
+                int index = in.readInt();
+                if (method == null) {
+                    return null;
+                }
+                sinks.add(new Sink(method, index));
+            }
+            int nTransfers = in.readInt();
+            Set<TaintTransfer> transfers = Sets.newSet(nTransfers);
+            for (int i = 0; i < nTransfers; ++i) {
+                JMethod method = hierarchy.getMethod(in.readUTF());
+                int from = in.readInt();
+                int to = in.readInt();
+                Type type = typeSystem.getType(in.readUTF());
+                if (method == null) {
+                    return null;
+                }
+                transfers.add(new TaintTransfer(method, from, to, type));
+            }
+            return new TaintConfig(name,
+                    Collections.unmodifiableSet(sources),
+                    Collections.unmodifiableSet(sinks),
+                    Collections.unmodifiableSet(transfers));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load taint config cache {}: {}",
+                    cacheFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Saves compiled taint configuration to given cache file.
+     * Failures are logged and otherwise ignored, as the cache is
+     * only an optimization.
+     */
+    void save(File cacheFile, TaintConfig config) {
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            logger.warn("Failed to create taint config cache directory {}", cacheDir);
+            return;
+        }
+        Path tmp = null;
+        try {
+            // write to a temporary file first, so that a concurrent or
+            // interrupted run never sees a partially written file
+            tmp = Files.createTempFile(cacheDir.toPath(), cacheFile.getName(), ".tmp");
+            write(tmp, config);
+            Files.move(tmp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to save taint config cache {}: {}",
+                    cacheFile, e.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void write(Path file, TaintConfig config) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(config.getSources().size());
+            for (Source source : config.getSources()) {
+                out.writeUTF(source.method().getSignature());
+                out.writeUTF(source.type().getName());
+            }
+            out.writeInt(config.getSinks().size());
+            for (Sink sink : config.getSinks()) {
+                out.writeUTF(sink.method().getSignature());
+                out.writeInt(sink.index());
+            }
+            out.writeInt(config.getTransfers().size());
+            for (TaintTransfer transfer : config.getTransfers()) {
+                out.writeUTF(transfer.method().getSignature());
+                out.writeInt(transfer.from());
+                out.writeInt(transfer.to());
+                out.writeUTF(transfer.type().getName());
+            }
+        }
+    }
+
+    /**
+     * Computes the cache key of given config file under the class path
+     * of given options.
+     */
+    private static String computeKey(File configFile, Options options)
+            throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        digest.update(Files.readAllBytes(configFile.toPath()));
+        update(digest, "java" + options.getJavaVersion() +
+                ";prepend-jvm=" + options.isPrependJVM());
+        String classPath = options.getClassPath();
+        if (classPath != null) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                update(digest, entry);
+                Path path = Path.of(entry);
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> paths = Files.walk(path)) {
+                        paths.filter(Files::isRegularFile)
+                                .sorted()
+                                .forEach(p -> update(digest, p.toFile()));
+                    }
+                } else {
+                    update(digest, path.toFile());
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    private static void update(MessageDigest digest, File file) {
+        update(digest, file.getPath() + ":" + file.length() +
+                ":" + file.lastModified());
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
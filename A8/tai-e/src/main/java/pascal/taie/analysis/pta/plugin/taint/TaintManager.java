@@ -30,6 +30,9 @@ import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import javax.annotation.Nullable;
+import java.util.Map;
+
 /**
  * Manages taint objects.
  */
@@ -37,8 +40,19 @@ class TaintManager {
 
     private static final String TAINT_DESC = "TaintObj";
 
+    /**
+     * Separator between {@link #TAINT_DESC} and the tag of a tagged taint object.
+     */
+    private static final String TAG_SEP = "@";
+
     private final TwoKeyMap<Invoke, Type, Obj> taints = Maps.newTwoKeyMap();
 
+    /**
+     * Tagged taint objects, i.e., tag -> (source, type) -> taint object.
+     */
+    private final Map<String, TwoKeyMap<Invoke, Type, Obj>> taggedTaints =
+            Maps.newHybridMap();
+
     /**
      * Makes a taint object for given source and type.
      *
@@ -51,12 +65,51 @@ class TaintManager {
                 (s, t) -> new MockObj(TAINT_DESC, s, t));
     }
 
+    /**
+     * Makes a taint object for given source and type, and tags it with
+     * given tag, so that taint objects generated by different taint
+     * configurations are distinguishable.
+     *
+     * @param source invocation to the source method, i.e., source call
+     * @param type   type of the taint object
+     * @param tag    tag of the taint object. If it is null, the result
+     *               is the same as {@link #makeTaint(Invoke, Type)}.
+     * @return the taint object for given source, type and tag.
+     */
+    Obj makeTaint(Invoke source, Type type, @Nullable String tag) {
+        if (tag == null) {
+            return makeTaint(source, type);
+        }
+        return taggedTaints.computeIfAbsent(tag, unused -> Maps.newTwoKeyMap())
+                .computeIfAbsent(source, type,
+                        (s, t) -> new MockObj(TAINT_DESC + TAG_SEP + tag, s, t));
+    }
+
     /**
      * @return true if given obj represents a taint object, otherwise false.
      */
     boolean isTaint(Obj obj) {
-        return obj instanceof MockObj &&
-                ((MockObj) obj).getDescription().equals(TAINT_DESC);
+        if (obj instanceof MockObj mockObj) {
+            String desc = mockObj.getDescription();
+            return desc.equals(TAINT_DESC) ||
+                    desc.startsWith(TAINT_DESC + TAG_SEP);
+        }
+        return false;
+    }
+
+    /**
+     * @return the tag of given taint object, or null if it is untagged.
+     * @throws AnalysisException if given object is not a taint object.
+     */
+    @Nullable
+    String getTag(Obj obj) {
+        if (isTaint(obj)) {
+            String desc = ((MockObj) obj).getDescription();
+            return desc.length() > TAINT_DESC.length() ?
+                    desc.substring(TAINT_DESC.length() + TAG_SEP.length()) :
+                    null;
+        }
+        throw new AnalysisException(obj + " is not a taint object");
     }
 
     /**
@@ -34,6 +34,11 @@ import pascal.taie.language.type.Type;
  *     <li>to: the index of "to" variable
  *     <li>type: the type of the transferred taint object
  * </ul>
+ * Besides the variables, "from" and "to" can also be the <i>content</i>
+ * of the objects pointed to by a variable, e.g., "base.content" for
+ * the elements of a container, which is modeled by a synthetic field
+ * of the objects. Taint objects are moved into and out of the content
+ * as they are, i.e., the type of the transfer is ignored in such cases.
  */
 record TaintTransfer(JMethod method, int from, int to, Type type) {
 
@@ -58,6 +63,18 @@ record TaintTransfer(JMethod method, int from, int to, Type type) {
      */
     private static final String RESULT_STR = "result";
 
+    /**
+     * Content of a variable v is represented by CONTENT - v, thus all
+     * contents are represented by numbers not greater than
+     * CONTENT - BASE (for "result.content").
+     */
+    private static final int CONTENT = -10;
+
+    /**
+     * String representation of the suffix of content.
+     */
+    private static final String CONTENT_SUFFIX = ".content";
+
     @Override
     public String toString() {
         return method + ": " + toString(from) + " -> " + toString(to) +
@@ -68,10 +85,15 @@ record TaintTransfer(JMethod method, int from, int to, Type type) {
      * Coverts string to index.
      */
     static int toInt(String s) {
-        return switch (s.toLowerCase()) {
+        String str = s.toLowerCase();
+        if (str.endsWith(CONTENT_SUFFIX)) {
+            return toContent(toInt(
+                    str.substring(0, str.length() - CONTENT_SUFFIX.length())));
+        }
+        return switch (str) {
             case BASE_STR -> BASE;
             case RESULT_STR -> RESULT;
-            default -> Integer.parseInt(s);
+            default -> Integer.parseInt(str);
         };
     }
 
@@ -79,10 +101,35 @@ record TaintTransfer(JMethod method, int from, int to, Type type) {
      * Converts index to string.
      */
     private static String toString(int index) {
+        if (isContent(index)) {
+            return toString(getVarIndex(index)) + CONTENT_SUFFIX;
+        }
         return switch (index) {
             case BASE -> BASE_STR;
             case RESULT -> RESULT_STR;
             default -> Integer.toString(index);
         };
     }
+
+    /**
+     * @return index representing the content of the variable of given index.
+     */
+    static int toContent(int varIndex) {
+        return CONTENT - varIndex;
+    }
+
+    /**
+     * @return true if given index represents the content of a variable.
+     */
+    static boolean isContent(int index) {
+        return index <= CONTENT - RESULT;
+    }
+
+    /**
+     * @return index of the variable of given index. If the index represents
+     * the content of a variable, then returns the index of that variable.
+     */
+    static int getVarIndex(int index) {
+        return isContent(index) ? CONTENT - index : index;
+    }
 }
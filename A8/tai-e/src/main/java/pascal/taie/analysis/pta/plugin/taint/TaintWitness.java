@@ -0,0 +1,199 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Records how taint objects flow during pointer analysis, and rebuilds
+ * witness paths of taint flows on demand.
+ * <p>
+ * For each taint object, only its first arrival at each pointer is
+ * recorded, as a predecessor, i.e., the pointer (and the taint object
+ * at that pointer, which differs from the arriving one for taint
+ * transfers) from which it arrives. As every predecessor arrives earlier
+ * than its successor, following the predecessors from a sink always
+ * terminates at the source call that generates the taint object.
+ * The paths are computed only when {@link #getPath(TaintFlow)} is called.
+ */
+public class TaintWitness {
+
+    /**
+     * Key of the witness in the result of pointer analysis.
+     */
+    public static final String KEY = "taint-witness";
+
+    /**
+     * Kinds of the edges through which taint objects arrive at pointers.
+     */
+    public enum Kind {
+        /**
+         * The taint object is generated by the source call.
+         */
+        SOURCE,
+        /**
+         * Intra-procedural PFG edges, including field and array accesses.
+         */
+        FLOW,
+        /**
+         * From arguments (or receiver) to parameters (or this variable).
+         */
+        CALL,
+        /**
+         * From return variables to the variable receiving the result.
+         */
+        RETURN,
+        /**
+         * Taint transfers.
+         */
+        TRANSFER,
+    }
+
+    /**
+     * A step on a witness path.
+     *
+     * @param pointer the pointer that the taint object arrives at
+     * @param obj     the taint object
+     * @param kind    the kind of the edge through which the taint
+     *                object arrives at the pointer
+     */
+    public record Step(Pointer pointer, CSObj obj, Kind kind) {
+
+        @Override
+        public String toString() {
+            return kind + ": " + pointer;
+        }
+    }
+
+    /**
+     * Predecessor of a taint object at a pointer.
+     */
+    private record Pred(Pointer pointer, CSObj obj, boolean isTransfer) {
+    }
+
+    private final Predicate<Obj> isTaint;
+
+    /**
+     * (pointer, taint object) -> predecessor.
+     */
+    private final TwoKeyMap<Pointer, CSObj, Pred> preds = Maps.newTwoKeyMap();
+
+    /**
+     * Taint flow -> (sink argument, taint object) in all contexts.
+     */
+    private final MultiMap<TaintFlow, Pair<Pointer, CSObj>> sinks = Maps.newMultiMap();
+
+    TaintWitness(Predicate<Obj> isTaint) {
+        this.isTaint = isTaint;
+    }
+
+    /**
+     * Records that obj arrives at pointer to from pointer from.
+     * Non-taint objects and later arrivals are ignored.
+     */
+    public void record(Pointer from, Pointer to, CSObj obj) {
+        if (isTaint.test(obj.getObject()) && !preds.containsKey(to, obj)) {
+            preds.put(to, obj, new Pred(from, obj, false));
+        }
+    }
+
+    /**
+     * Records that taint object toObj at pointer to is transferred from
+     * taint object fromObj at pointer from.
+     */
+    void recordTransfer(Pointer from, CSObj fromObj, Pointer to, CSObj toObj) {
+        if (!preds.containsKey(to, toObj)) {
+            preds.put(to, toObj, new Pred(from, fromObj, true));
+        }
+    }
+
+    /**
+     * Records that the taint object reaches the sink argument of taint flow.
+     */
+    void addSink(TaintFlow flow, Pointer sinkArg, CSObj obj) {
+        sinks.put(flow, new Pair<>(sinkArg, obj));
+    }
+
+    /**
+     * Rebuilds the witness path of given taint flow. If the flow
+     * is detected in multiple contexts, the shortest path is returned.
+     *
+     * @return steps from the result of the source call to the sink
+     * argument, or an empty list if the flow was not detected.
+     */
+    public List<Step> getPath(TaintFlow flow) {
+        List<Step> shortest = null;
+        for (Pair<Pointer, CSObj> sink : sinks.get(flow)) {
+            List<Step> path = getPath(sink.first(), sink.second());
+            if (shortest == null || path.size() < shortest.size()) {
+                shortest = path;
+            }
+        }
+        return shortest != null ? shortest : List.of();
+    }
+
+    private List<Step> getPath(Pointer pointer, CSObj obj) {
+        List<Step> path = new ArrayList<>();
+        Pred pred;
+        while ((pred = preds.get(pointer, obj)) != null) {
+            Kind kind = pred.isTransfer() ? Kind.TRANSFER :
+                    getKind(pred.pointer(), pointer);
+            path.add(new Step(pointer, obj, kind));
+            pointer = pred.pointer();
+            obj = pred.obj();
+        }
+        path.add(new Step(pointer, obj, Kind.SOURCE));
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @return kind of PFG edge from -> to.
+     */
+    private static Kind getKind(Pointer from, Pointer to) {
+        if (from instanceof CSVar csFrom && to instanceof CSVar csTo) {
+            Var fromVar = csFrom.getVar();
+            Var toVar = csTo.getVar();
+            if (!fromVar.getMethod().equals(toVar.getMethod())) {
+                IR ir = toVar.getMethod().getIR();
+                return toVar == ir.getThis() || ir.getParams().contains(toVar) ?
+                        Kind.CALL : Kind.RETURN;
+            }
+        }
+        return Kind.FLOW;
+    }
+}
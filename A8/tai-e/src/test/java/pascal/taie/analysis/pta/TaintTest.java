@@ -22,8 +22,27 @@
 
 package pascal.taie.analysis.pta;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.analysis.pta.plugin.taint.TaintWitness;
+import pascal.taie.ir.exp.Var;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TaintTest {
 
@@ -70,4 +89,135 @@ public class TaintTest {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
     }
+
+    @Test
+    public void testTaintInListWithContainerModels() {
+        // StringList is not a JDK container, thus the results
+        // should not be affected by container models
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;taint-container-models:true;" +
+                        "taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testTaintInContainers() {
+        // taint flows through JDK containers are found by container
+        // models, and the overriding methods of application subclasses
+        // of the containers are analyzed as usual
+        Tests.testCSPTA(DIR, "TaintInContainers",
+                "taint-container-models:true;" +
+                        "taint-config:src/test/resources/pta/taint/container-config.yml");
+    }
+
+    @Test
+    public void testMultipleConfigs() {
+        // flows detected by the two configs together should be
+        // the same as the ones detected by the full config
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-config:src/test/resources/pta/taint/multi-config/one-arg-sink.yml," +
+                        "src/test/resources/pta/taint/multi-config/two-arg-sink.yml");
+        // each config should only detect the flows to its own sinks
+        Map<String, Set<TaintFlow>> flowsByConfig = getResult()
+                .getResult(TaintAnalysiss.FLOWS_BY_CONFIG);
+        Assert.assertEquals(Set.of("one-arg-sink", "two-arg-sink"),
+                flowsByConfig.keySet());
+        Assert.assertEquals(Set.of(
+                        "TaintFlow{<SimpleTaint: void main(java.lang.String[])>[0@L4] temp$0 = invokestatic <SourceSink: java.lang.String source()>(); -> <SimpleTaint: void main(java.lang.String[])>[2@L5] invokestatic <SourceSink: void sink(java.lang.String)>(s1);/0}",
+                        "TaintFlow{<SimpleTaint: void main(java.lang.String[])>[3@L7] temp$1 = invokestatic <SourceSink: java.lang.String source()>(); -> <SimpleTaint: void main(java.lang.String[])>[5@L8] invokestatic <SourceSink: void sink(java.lang.String)>(s2);/0}"),
+                toStrings(flowsByConfig.get("one-arg-sink")));
+        Assert.assertEquals(Set.of(
+                        "TaintFlow{<SimpleTaint: void main(java.lang.String[])>[0@L4] temp$0 = invokestatic <SourceSink: java.lang.String source()>(); -> <SimpleTaint: void main(java.lang.String[])>[16@L11] invokestatic <SourceSink: void sink(java.lang.String,int)>(s3, %intconst0);/0}",
+                        "TaintFlow{<SimpleTaint: void main(java.lang.String[])>[3@L7] temp$1 = invokestatic <SourceSink: java.lang.String source()>(); -> <SimpleTaint: void main(java.lang.String[])>[16@L11] invokestatic <SourceSink: void sink(java.lang.String,int)>(s3, %intconst0);/0}"),
+                toStrings(flowsByConfig.get("two-arg-sink")));
+    }
+
+    @Test
+    public void testSignaturePatterns() {
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "taint-config:src/test/resources/pta/taint/taint-config-patterns.yml");
+    }
+
+    @Test
+    public void testConfigCache() throws IOException {
+        Path dir = Files.createTempDirectory("taint-config-cache");
+        Path config = dir.resolve("taint-config.yml");
+        Files.copy(Path.of("src/test/resources/pta/taint/taint-config.yml"), config);
+        Path cacheDir = dir.resolve("cache");
+        String opts = "taint-config:" + config + ";taint-config-cache:" + cacheDir;
+        // the first run compiles the config and saves it to cache
+        Tests.testCSPTA(DIR, "SimpleTaint", opts);
+        List<Path> cacheFiles = listCacheFiles(cacheDir);
+        Assert.assertEquals(1, cacheFiles.size());
+        // the second run loads the config from cache, which detects
+        // the same flows and leaves the cache file untouched
+        FileTime time = FileTime.fromMillis(1_000_000_000_000L);
+        Files.setLastModifiedTime(cacheFiles.get(0), time);
+        Tests.testCSPTA(DIR, "SimpleTaint", opts);
+        Assert.assertEquals(cacheFiles, listCacheFiles(cacheDir));
+        Assert.assertEquals(time, Files.getLastModifiedTime(cacheFiles.get(0)));
+        // changing the config file invalidates the cache
+        Files.writeString(config, "# changed" + System.lineSeparator(),
+                StandardOpenOption.APPEND);
+        Tests.testCSPTA(DIR, "SimpleTaint", opts);
+        Assert.assertEquals(2, listCacheFiles(cacheDir).size());
+    }
+
+    private static List<Path> listCacheFiles(Path cacheDir) throws IOException {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            return files.filter(f -> f.toString().endsWith(".tcfg"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Test
+    public void testWitness() {
+        Tests.testCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call;taint-witness:true;" +
+                        "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        PointerAnalysisResult result = getResult();
+        TaintWitness witness = result.getResult(TaintWitness.KEY);
+        Set<TaintFlow> flows = result.getResult(TaintAnalysiss.class.getName());
+        Assert.assertEquals(3, flows.size());
+        for (TaintFlow flow : flows) {
+            List<TaintWitness.Step> path = witness.getPath(flow);
+            // the path starts from the result of the source call ...
+            TaintWitness.Step source = path.get(0);
+            Assert.assertEquals(TaintWitness.Kind.SOURCE, source.kind());
+            Assert.assertEquals(flow.sourceCall().getResult(), getVar(source));
+            // ... and ends at the sink argument, which receives
+            // the taint object returned by transfer()
+            TaintWitness.Step sink = path.get(path.size() - 1);
+            Assert.assertEquals(TaintWitness.Kind.RETURN, sink.kind());
+            Assert.assertEquals(flow.sinkCall().getInvokeExp().getArg(flow.index()),
+                    getVar(sink));
+            Assert.assertTrue(path.toString(), path.stream().anyMatch(step ->
+                    step.kind() == TaintWitness.Kind.CALL &&
+                            getVar(step).getMethod().getName().equals("transfer")));
+            // only taint transfers change the taint object along the path
+            for (int i = 1; i < path.size(); ++i) {
+                if (path.get(i).kind() != TaintWitness.Kind.TRANSFER) {
+                    Assert.assertEquals(path.toString(),
+                            path.get(i - 1).obj(), path.get(i).obj());
+                }
+            }
+        }
+    }
+
+    private static Var getVar(TaintWitness.Step step) {
+        return ((CSVar) step.pointer()).getVar();
+    }
+
+    /**
+     * @return the result of the pointer analysis run by the last test.
+     */
+    private static PointerAnalysisResult getResult() {
+        return World.get().getResult(CSPTA.ID);
+    }
+
+    private static Set<String> toStrings(Set<TaintFlow> flows) {
+        return flows.stream()
+                .map(TaintFlow::toString)
+                .collect(Collectors.toSet());
+    }
 }
@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.bench;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Runs cspta with taint analysis on programs generated by
+ * {@link TaintBenchmarkGenerator} of growing sizes, and records time,
+ * peak heap usage and taint flows found for each size. The flows found
+ * are compared with the expected ones, and the numbers of missing and
+ * spurious flows are recorded, which are printed in detail if any.
+ * <p>
+ * Usage: {@code TaintBenchmark [cs] [max-scale] [container-models]}, e.g.,
+ * {@code TaintBenchmark 2-obj 16 false} analyzes the benchmarks of scale
+ * 1, 2, 4, 8 and 16 with 2-object sensitivity, and without the container
+ * models of taint analysis (enabled by default), so that the taints
+ * through the JDK containers are lost. The results are printed and
+ * written to {@code build/taint-bench/results.csv}.
+ */
+public class TaintBenchmark {
+
+    private static final Path OUTPUT_DIR = Path.of("build", "taint-bench");
+
+    /**
+     * Parameters of benchmark of scale 1.
+     */
+    private static final TaintBenchmarkGenerator.Parameters BASE =
+            new TaintBenchmarkGenerator.Parameters(10, 2, 3, 2, 2, 10);
+
+    private static final String HEADER =
+            "scale,units,sinks,depth,transfers,containers,fillers," +
+                    "container-models,time(ms),peak-heap(MB),flows," +
+                    "expected-flows,missing-flows,spurious-flows";
+
+    public static void main(String[] args) {
+        String cs = args.length > 0 ? args[0] : "ci";
+        int maxScale = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        boolean containerModels = args.length <= 2 || Boolean.parseBoolean(args[2]);
+        try {
+            Files.createDirectories(OUTPUT_DIR);
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(OUTPUT_DIR.resolve("results.csv")))) {
+                out.println(HEADER);
+                System.out.println(HEADER);
+                for (int scale = 1; scale <= maxScale; scale *= 2) {
+                    String line = run(cs, containerModels, scale, BASE.scale(scale));
+                    out.println(line);
+                    out.flush();
+                    System.out.println(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates and analyzes a benchmark.
+     *
+     * @return the CSV line of the measurements.
+     */
+    private static String run(String cs, boolean containerModels, int scale,
+                              TaintBenchmarkGenerator.Parameters params) {
+        Path dir = OUTPUT_DIR.resolve("scale" + scale);
+        Set<String> expected = new TaintBenchmarkGenerator(params).generate(dir);
+        String[] args = {
+                "-pp",
+                "-cp", dir.toString(),
+                "-m", TaintBenchmarkGenerator.MAIN_CLASS,
+                "-a", CSPTA.ID + "=" + String.join(";",
+                "cs:" + cs,
+                "implicit-entries:false",
+                "only-app:true",
+                "taint-container-models:" + containerModels,
+                "taint-config:" + dir.resolve(TaintBenchmarkGenerator.CONFIG_FILE))
+        };
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans()
+                .stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        Main.main(args);
+        long time = (System.nanoTime() - start) / 1_000_000;
+        long peakHeap = heapPools.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum() / (1024 * 1024);
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Set<TaintFlow> flows = result.getResult(TaintAnalysiss.class.getName());
+        Set<String> found = flows.stream()
+                .map(flow -> toString(flow.sourceCall()) + " -> " +
+                        toString(flow.sinkCall()))
+                .collect(Collectors.toCollection(TreeSet::new));
+        Set<String> missing = new TreeSet<>(expected);
+        missing.removeAll(found);
+        Set<String> spurious = new TreeSet<>(found);
+        spurious.removeAll(expected);
+        missing.forEach(flow -> System.err.println("Missing flow: " + flow));
+        spurious.forEach(flow -> System.err.println("Spurious flow: " + flow));
+        return String.join(",",
+                Integer.toString(scale),
+                Integer.toString(params.units()),
+                Integer.toString(params.sinksPerSource()),
+                Integer.toString(params.depth()),
+                Integer.toString(params.transfers()),
+                Integer.toString(params.containers()),
+                Integer.toString(params.fillers()),
+                Boolean.toString(containerModels),
+                Long.toString(time),
+                Long.toString(peakHeap),
+                Integer.toString(found.size()),
+                Integer.toString(expected.size()),
+                Integer.toString(missing.size()),
+                Integer.toString(spurious.size()));
+    }
+
+    /**
+     * @return string representation of given call site in the form of
+     * {@link TaintBenchmarkGenerator#toString(String, String, int)}.
+     */
+    private static String toString(Invoke callSite) {
+        JMethod container = callSite.getContainer();
+        return TaintBenchmarkGenerator.toString(
+                container.getDeclaringClass().getName(),
+                container.getName(), callSite.getLineNumber());
+    }
+}
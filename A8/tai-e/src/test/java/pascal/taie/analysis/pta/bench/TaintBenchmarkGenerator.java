@@ -0,0 +1,289 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates synthetic Java programs (as source files) together with
+ * taint configurations for benchmarking taint analysis.
+ * <p>
+ * The generated program consists of independent <i>units</i>. Each unit
+ * obtains a taint from a source call, passes it through a chain of
+ * {@link Parameters#depth} method calls, {@link Parameters#transfers}
+ * taint transfers (via {@code StringBuilder.append()/toString()}) and
+ * {@link Parameters#containers} JDK containers (in turn {@code ArrayList},
+ * {@code HashMap}, {@code ArrayDeque} and the iterator of
+ * {@code LinkedList}), and finally reaches {@link Parameters#sinksPerSource}
+ * sink calls. Each unit also sends an untainted string to a sink.
+ * As units share no application methods, every source reaches exactly
+ * the sinks of its own unit, thus the expected taint flows are known by
+ * construction, and they are returned by {@link #generate(Path)}.
+ * Besides, {@link Parameters#fillers} filler classes without taints are
+ * generated to enlarge the program.
+ * <p>
+ * Note that the flows through the containers are detected only if
+ * the JDK is analyzed or option {@code taint-container-models} is enabled.
+ */
+public class TaintBenchmarkGenerator {
+
+    static final String MAIN_CLASS = "TaintBench";
+
+    static final String CONFIG_FILE = "taint-config.yml";
+
+    /**
+     * Number of different kinds of containers used by the units.
+     */
+    private static final int CONTAINER_KINDS = 4;
+
+    /**
+     * Parameters of a generated benchmark.
+     *
+     * @param units          number of units, i.e., number of source calls
+     * @param sinksPerSource number of sink calls reached by each source
+     * @param depth          length of the call chain in each unit
+     * @param transfers      length of the taint transfer chain in each unit
+     * @param containers     number of containers that taints go through
+     *                       in each unit
+     * @param fillers        number of filler classes
+     */
+    public record Parameters(int units, int sinksPerSource, int depth,
+                             int transfers, int containers, int fillers) {
+
+        /**
+         * @return a copy of these parameters whose sizes are scaled by factor.
+         */
+        public Parameters scale(int factor) {
+            return new Parameters(units * factor, sinksPerSource, depth,
+                    transfers, containers, fillers * factor);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("units=%d,sinks=%d,depth=%d,transfers=%d," +
+                            "containers=%d,fillers=%d", units, sinksPerSource,
+                    depth, transfers, containers, fillers);
+        }
+    }
+
+    private final Parameters params;
+
+    public TaintBenchmarkGenerator(Parameters params) {
+        this.params = params;
+    }
+
+    /**
+     * Generates the program and its taint configuration to given directory.
+     *
+     * @return the expected taint flows, each of which is represented by
+     * {@link #toString(String, String, int)} of its source call and
+     * sink call, i.e., {@code "source -> sink"}.
+     */
+    public Set<String> generate(Path dir) {
+        try {
+            Files.createDirectories(dir);
+            write(dir, "SourceSink", sourceSink());
+            write(dir, MAIN_CLASS, mainClass());
+            Set<String> flows = new TreeSet<>();
+            for (int i = 0; i < params.units(); ++i) {
+                write(dir, unitName(i), unit(i, flows));
+            }
+            for (int i = 0; i < params.fillers(); ++i) {
+                write(dir, fillerName(i), filler(i));
+            }
+            Files.writeString(dir.resolve(CONFIG_FILE), config());
+            return flows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return string representation of a call site, which is used to
+     * identify the source and sink calls of taint flows.
+     */
+    static String toString(String className, String methodName, int lineNumber) {
+        return className + "." + methodName + ":L" + lineNumber;
+    }
+
+    private static void write(Path dir, String className, String content)
+            throws IOException {
+        Files.writeString(dir.resolve(className + ".java"), content);
+    }
+
+    private static String unitName(int i) {
+        return "Unit" + i;
+    }
+
+    private static String fillerName(int i) {
+        return "Filler" + i;
+    }
+
+    /**
+     * @return the line number of the next line appended to sb.
+     */
+    private static int nextLine(StringBuilder sb) {
+        return (int) sb.chars().filter(c -> c == '\n').count() + 1;
+    }
+    private static String sourceSink() {
+        return """
+                class SourceSink {
+
+                    static String source() {
+                        return new String();
+                    }
+
+                    static void sink(String s) {
+                    }
+                }
+                """;
+    }
+
+    private static String config() {
+        return """
+                sources:
+                  - { method: "<SourceSink: java.lang.String source()>", type: "java.lang.String" }
+
+                sinks:
+                  - { method: "<SourceSink: void sink(java.lang.String)>", index: 0 }
+
+                transfers:
+                  - { method: "<java.lang.StringBuilder: java.lang.StringBuilder append(java.lang.String)>", from: 0, to: base, type: "java.lang.StringBuilder" }
+                  - { method: "<java.lang.StringBuilder: java.lang.String toString()>", from: base, to: result, type: "java.lang.String" }
+                """;
+    }
+
+    private String mainClass() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("class ").append(MAIN_CLASS).append(" {\n\n");
+        sb.append("    public static void main(String[] args) {\n");
+        for (int i = 0; i < params.units(); ++i) {
+            sb.append("        ").append(unitName(i)).append(".run();\n");
+        }
+        for (int i = 0; i < params.fillers(); ++i) {
+            sb.append("        new ").append(fillerName(i)).append("().run();\n");
+        }
+        sb.append("    }\n}\n");
+        return sb.toString();
+    }
+
+    private String unit(int i, Set<String> flows) {
+        String unit = unitName(i);
+        StringBuilder sb = new StringBuilder();
+        sb.append("import java.util.*;\n\n");
+        sb.append("class ").append(unit).append(" {\n\n");
+        // entry of the unit
+        sb.append("    static void run() {\n");
+        String source = toString(unit, "run", nextLine(sb));
+        sb.append("        String taint = SourceSink.source();\n");
+        sb.append("        String s = call0(taint);\n");
+        for (int k = 0; k < params.sinksPerSource(); ++k) {
+            flows.add(source + " -> " + toString(unit, "run", nextLine(sb)));
+            sb.append("        SourceSink.sink(s); // taint\n");
+        }
+        sb.append("        SourceSink.sink(new String()); // no taint\n");
+        sb.append("    }\n\n");
+        // call chain (of at least one call)
+        int depth = Math.max(params.depth(), 1);
+        for (int d = 0; d < depth; ++d) {
+            String callee = d + 1 < depth ? "call" + (d + 1) : "transfer";
+            sb.append("    static String call").append(d).append("(String s) {\n");
+            sb.append("        return ").append(callee).append("(s);\n");
+            sb.append("    }\n\n");
+        }
+        // transfer chain and containers
+        sb.append("    static String transfer(String s) {\n");
+        for (int t = 0; t < params.transfers(); ++t) {
+            sb.append("        StringBuilder sb").append(t)
+                    .append(" = new StringBuilder();\n");
+            sb.append("        sb").append(t).append(".append(s);\n");
+            sb.append("        s = sb").append(t).append(".toString();\n");
+        }
+        for (int c = 0; c < params.containers(); ++c) {
+            // vary the kinds of containers among units and along the chain
+            switch ((i + c) % CONTAINER_KINDS) {
+                case 0 -> {
+                    sb.append("        List<String> list").append(c)
+                            .append(" = new ArrayList<>();\n");
+                    sb.append("        list").append(c).append(".add(s);\n");
+                    sb.append("        s = list").append(c).append(".get(0);\n");
+                }
+                case 1 -> {
+                    sb.append("        Map<String, String> map").append(c)
+                            .append(" = new HashMap<>();\n");
+                    sb.append("        map").append(c).append(".put(\"k\", s);\n");
+                    sb.append("        s = map").append(c).append(".get(\"k\");\n");
+                }
+                case 2 -> {
+                    sb.append("        Deque<String> deque").append(c)
+                            .append(" = new ArrayDeque<>();\n");
+                    sb.append("        deque").append(c).append(".push(s);\n");
+                    sb.append("        s = deque").append(c).append(".pop();\n");
+                }
+                default -> {
+                    sb.append("        List<String> linked").append(c)
+                            .append(" = new LinkedList<>();\n");
+                    sb.append("        linked").append(c).append(".add(s);\n");
+                    sb.append("        Iterator<String> it").append(c)
+                            .append(" = linked").append(c).append(".iterator();\n");
+                    sb.append("        s = it").append(c).append(".next();\n");
+                }
+            }
+        }
+        sb.append("        return s;\n");
+        sb.append("    }\n}\n");
+        return sb.toString();
+    }
+
+    private static String filler(int i) {
+        String filler = fillerName(i);
+        return """
+                class %s {
+
+                    private Object f;
+
+                    private Object[] arr = new Object[4];
+
+                    void run() {
+                        Object o = new Object();
+                        f = o;
+                        arr[0] = f;
+                        Object p = id(arr[0]);
+                        String s = String.valueOf(p);
+                        StringBuilder sb = new StringBuilder();
+                        sb.append(s);
+                        f = sb.toString();
+                    }
+
+                    Object id(Object o) {
+                        return o;
+                    }
+                }
+                """.formatted(filler);
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+class TaintInContainers {
+
+    public static void main(String[] args) {
+        list();
+        map();
+        iterator();
+        appList();
+        ignoringList();
+    }
+
+    static void list() {
+        Object taint = SourceSink.source();
+        List<Object> l = new ArrayList<>();
+        l.add(taint);
+        Object o = l.get(0);
+        sink(o); // taint
+    }
+
+    static void map() {
+        Object taint = SourceSink.source();
+        Object key = new Object();
+        Map<Object, Object> m = new HashMap<>();
+        m.put(key, taint);
+        Object o = m.get(key);
+        sink(o); // taint
+    }
+
+    static void iterator() {
+        Object taint = SourceSink.source();
+        List<Object> l = new ArrayList<>();
+        l.add(taint);
+        Iterator<Object> it = l.iterator();
+        Object o = it.next();
+        sink(o); // taint
+    }
+
+    static void appList() {
+        Object taint = SourceSink.source();
+        List<Object> l = new LastElementList();
+        l.add(taint);
+        Object o = l.get(0);
+        sink(o); // taint, through the methods of LastElementList
+    }
+
+    static void ignoringList() {
+        Object taint = SourceSink.source();
+        List<Object> l = new IgnoringList();
+        l.add(taint);
+        Object o = l.get(0);
+        sink(o); // no taint, as IgnoringList.add() drops the element
+    }
+
+    static void sink(Object o) {
+    }
+}
+
+class LastElementList extends ArrayList<Object> {
+
+    private Object last;
+
+    @Override
+    public boolean add(Object o) {
+        last = o;
+        return true;
+    }
+
+    @Override
+    public Object get(int i) {
+        return last;
+    }
+}
+
+class IgnoringList extends ArrayList<Object> {
+
+    @Override
+    public boolean add(Object o) {
+        return false;
+    }
+}